@@ -0,0 +1,126 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.service.SocketService;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+import com.google.gson.Gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare les codecs JSON et binaire :
+ *  - taille d'un SEND_MESSAGE sur le fil
+ *  - coût d'encodage / décodage en mémoire (ns par paquet)
+ *  - débit de bout en bout entre deux clients SocketService, via {@link StandInServer}
+ *    démarré sur le port du client (8080, qui doit être libre)
+ *
+ * Aucun affichage requis : les paquets sont livrés directement sur le thread réseau.
+ *
+ * Usage : CodecBenchmark [nbMessages] [json|binary|both]
+ */
+public final class CodecBenchmark {
+
+    private static final int CODEC_ROUNDS = 1_000_000;
+    /** Attente de l'envoi tous les N messages (la file d'envoi est bornée). */
+    private static final int SEND_WINDOW = 512;
+
+    private CodecBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String which = args.length > 1 ? args[1] : "both";
+        String[] codecs = "both".equalsIgnoreCase(which) ? new String[] {"json", "binary"} : new String[] {which};
+
+        Gson gson = JsonAdapters.GSON;
+        // Serveur de test ouvert pendant toute la mesure
+        StandInServer server = new StandInServer(StandInServer.DEFAULT_PORT);
+        try {
+            for (String name : codecs) {
+                inMemory(PacketCodec.forName(name, gson));
+                endToEnd(name, count);
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    private static Packet sample(int i) {
+        return new Packet("SEND_MESSAGE", "alice", "bob",
+                "Salut Bob, ça va ? On se retrouve à 18h.\nMessage n°" + i);
+    }
+
+    /** Encodage + décodage d'un même paquet, sans réseau. */
+    private static void inMemory(PacketCodec codec) throws IOException {
+        Packet packet = sample(42);
+        byte[] frame = codec.encode(packet);
+        long sink = 0;
+        for (int i = 0; i < CODEC_ROUNDS / 10; i++) // chauffe
+            sink += codec.decode(ByteBuffer.wrap(codec.encode(packet))).getContent().length();
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < CODEC_ROUNDS; i++)
+            sink += codec.encode(packet).length;
+        long t1 = System.nanoTime();
+        for (int i = 0; i < CODEC_ROUNDS; i++)
+            sink += codec.decode(ByteBuffer.wrap(frame)).getContent().length();
+        long t2 = System.nanoTime();
+        Packet viaStream = codec.read(new ByteArrayInputStream(frame));
+
+        System.out.printf("codec=%s frame_bytes=%d encode_ns=%.0f decode_ns=%.0f roundtrip_ok=%b (%d)%n",
+                codec.name(), frame.length,
+                (t1 - t0) / (double) CODEC_ROUNDS, (t2 - t1) / (double) CODEC_ROUNDS,
+                packet.equals(viaStream), sink % 10);
+    }
+
+    /** alice envoie {@code count} messages à bob à travers le serveur de test. */
+    private static void endToEnd(String codec, int count) throws Exception {
+        CountDownLatch loggedIn = new CountDownLatch(2);
+        CountDownLatch received = new CountDownLatch(count);
+
+        SocketService alice = new SocketService(Runnable::run);
+        SocketService bob = new SocketService(Runnable::run);
+        alice.setCodec(codec);
+        bob.setCodec(codec);
+        alice.connect(p -> {
+            if ("ACK".equals(p.getAction()))
+                loggedIn.countDown();
+        });
+        bob.connect(p -> {
+            if ("ACK".equals(p.getAction()))
+                loggedIn.countDown();
+            else if ("MESSAGE_RECEIVED".equals(p.getAction()))
+                received.countDown();
+        });
+        alice.login("alice", "x");
+        bob.login("bob", "x");
+        if (!loggedIn.await(5, TimeUnit.SECONDS))
+            throw new IllegalStateException("Pas de réponse du serveur de test");
+
+        long t0 = System.nanoTime();
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < count; i++) {
+            last = alice.send(sample(i));
+            if ((i + 1) % SEND_WINDOW == 0)
+                last.join();
+        }
+        if (last != null)
+            last.join();
+        boolean complete = received.await(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - t0;
+
+        System.out.printf("codec=%s messages=%d received=%d elapsed_ms=%.1f msg_per_s=%.0f%n",
+                codec, count, count - received.getCount(), elapsed / 1e6,
+                (count - received.getCount()) / (elapsed / 1e9));
+        if (!complete)
+            System.err.println("Messages manquants pour le codec " + codec);
+
+        alice.disconnect();
+        bob.disconnect();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.service.ConnectionCompression;
+import com.example.pelo_chat.service.SocketService;
+import com.example.pelo_chat.utils.Packet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connexion avec et sans compression DEFLATE, face à un annuaire de N comptes
+ * (20 000 par défaut) servi par {@link StandInServer} sur le port 8080 :
+ *  - temps entre GET_USERS et la réception du USERS_LIST décodé
+ *  - puis {@value #MESSAGES} messages interactifs envoyés à soi-même
+ *  - volumes, ratio et temps CPU mesurés par ConnectionCompression
+ *
+ * Usage : CompressionBenchmark [nbComptes]
+ */
+public final class CompressionBenchmark {
+
+    private static final int MESSAGES = 2_000;
+
+    private CompressionBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        try (StandInServer server = new StandInServer(StandInServer.DEFAULT_PORT)) {
+            server.seedUsers(users);
+            for (String codec : new String[] {"json", "binary"}) {
+                run(codec, false);
+                run(codec, true);
+            }
+        }
+    }
+
+    private static void run(String codec, boolean compress) throws Exception {
+        CountDownLatch loggedIn = new CountDownLatch(1);
+        CountDownLatch listed = new CountDownLatch(1);
+        CountDownLatch echoed = new CountDownLatch(MESSAGES);
+        AtomicInteger listSize = new AtomicInteger();
+
+        SocketService client = new SocketService(Runnable::run);
+        client.setCodec(codec);
+        client.setCompression(compress);
+        client.connect(p -> {
+            switch (p.getAction()) {
+                case "ACK" -> loggedIn.countDown();
+                case "USERS_LIST" -> {
+                    User[] list = p.payloadAs(User[].class);
+                    listSize.set(list != null ? list.length : -1);
+                    listed.countDown();
+                }
+                case "MESSAGE_RECEIVED" -> echoed.countDown();
+                default -> {
+                }
+            }
+        });
+        client.login("bench", "x");
+        if (!loggedIn.await(5, TimeUnit.SECONDS))
+            throw new IllegalStateException("Pas de réponse du serveur de test");
+
+        long t0 = System.nanoTime();
+        client.requestUsers("bench");
+        listed.await(60, TimeUnit.SECONDS);
+        long listNanos = System.nanoTime() - t0;
+
+        long t1 = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            client.send(new Packet("SEND_MESSAGE", "bench", "bench", "Message interactif n°" + i)).join();
+        }
+        echoed.await(60, TimeUnit.SECONDS);
+        long msgNanos = System.nanoTime() - t1;
+
+        System.out.printf("codec=%s deflate=%b users=%d users_list_ms=%.1f msg_roundtrip_us=%.0f%n",
+                codec, compress, listSize.get(), listNanos / 1e6, msgNanos / 1e3 / MESSAGES);
+        ConnectionCompression z = client.getCompression();
+        if (z != null)
+            System.out.printf("  ratio=%.1f deflate_ms=%.1f inflate_ms=%.1f wire_in=%d raw_in=%d%n",
+                    z.ratio(), z.deflateNanos() / 1e6, z.inflateNanos() / 1e6,
+                    z.compressedBytesReceived(), z.rawBytesReceived());
+        client.disconnect();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.StatusEvent;
+import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.Packet;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sérialisation JSON des types du protocole et de l'historique, trois variantes :
+ *  - adapters   : JsonAdapters.GSON (adaptateurs écrits à la main, instance partagée)
+ *  - reflection : un Gson par défaut partagé (adaptateurs par réflexion)
+ *  - new Gson() : un Gson créé à chaque appel (caches d'adaptateurs reconstruits)
+ * Pour chaque opération : temps (ns) et octets alloués par appel.
+ *
+ * Usage : JsonBenchmark [rounds]
+ */
+public final class JsonBenchmark {
+
+    private static final Type STATUS_MAP = new TypeToken<Map<String, String>>() {
+    }.getType();
+
+    private JsonBenchmark() {}
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Gson adapters = JsonAdapters.GSON;
+        Gson reflection = new Gson();
+
+        Packet packet = new Packet("MESSAGE_RECEIVED", "alice", "bob",
+                "Salut Bob, ça va ? On se retrouve à 18h devant la gare.");
+        String packetJson = reflection.toJson(packet);
+        ChatMessage message = new ChatMessage("alice", packet.getContent(), false, "18:04");
+        String messageJson = reflection.toJson(message);
+        String statusJson = "{\"username\":\"alice\",\"status\":\"ONLINE\"}";
+        String usersJson = reflection.toJson(users(200));
+
+        System.out.printf("%-26s %-11s %10s %12s%n", "operation", "variante", "ns/op", "octets/op");
+        run("Packet → JSON", rounds,
+                () -> adapters.toJson(packet), () -> reflection.toJson(packet), () -> new Gson().toJson(packet));
+        run("JSON → Packet", rounds,
+                () -> adapters.fromJson(packetJson, Packet.class),
+                () -> reflection.fromJson(packetJson, Packet.class),
+                () -> new Gson().fromJson(packetJson, Packet.class));
+        run("ChatMessage → JSON", rounds,
+                () -> adapters.toJson(message), () -> reflection.toJson(message), () -> new Gson().toJson(message));
+        run("JSON → ChatMessage", rounds,
+                () -> adapters.fromJson(messageJson, ChatMessage.class),
+                () -> reflection.fromJson(messageJson, ChatMessage.class),
+                () -> new Gson().fromJson(messageJson, ChatMessage.class));
+        run("STATUS_UPDATE → statut", rounds,
+                () -> adapters.fromJson(statusJson, StatusEvent.class),
+                () -> reflection.fromJson(statusJson, STATUS_MAP),
+                () -> new Gson().fromJson(statusJson, STATUS_MAP));
+        run("USERS_LIST (200) → User[]", rounds / 100,
+                () -> adapters.fromJson(usersJson, User[].class),
+                () -> reflection.fromJson(usersJson, User[].class),
+                () -> new Gson().fromJson(usersJson, User[].class));
+    }
+
+    private static List<Map<String, String>> users(int n) {
+        List<Map<String, String>> users = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Map<String, String> u = new LinkedHashMap<>();
+            u.put("username", "user" + i);
+            u.put("fullName", "Utilisateur Numéro " + i);
+            u.put("status", i % 3 == 0 ? "ONLINE" : "OFFLINE");
+            users.add(u);
+        }
+        return users;
+    }
+
+    private static void run(String name, int rounds, Supplier<?> adapters, Supplier<?> reflection, Supplier<?> fresh) {
+        measure(name, "adapters", rounds, adapters);
+        measure(name, "reflection", rounds, reflection);
+        measure(name, "new Gson()", Math.max(1, rounds / 10), fresh);
+    }
+
+    private static void measure(String name, String variant, int rounds, Supplier<?> op) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) // chauffe
+            sink += op.get().hashCode();
+        long thread = Thread.currentThread().threadId();
+        long b0 = threads.getThreadAllocatedBytes(thread);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            sink += op.get().hashCode();
+        long nanos = System.nanoTime() - t0;
+        long bytes = threads.getThreadAllocatedBytes(thread) - b0;
+        System.out.printf("%-26s %-11s %10.0f %12d%s%n", name, variant,
+                nanos / (double) rounds, bytes / rounds, sink == 42 ? " " : "");
+    }
+}
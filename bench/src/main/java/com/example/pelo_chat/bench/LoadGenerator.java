@@ -0,0 +1,180 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.service.SocketService;
+import com.example.pelo_chat.utils.Packet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Générateur de charge contre un client PELO Chat en cours d'exécution : des comptes
+ * robots se connectent au serveur (en pratique {@link StandInServer}) puis envoient des
+ * messages au compte ciblé et changent de statut, à des débits fixés par un script.
+ *
+ * Le script est une suite de phases "durée:messages/s:statuts/s" séparées par des
+ * virgules, par exemple "10:20:5,30:500:100,10:0:0" : 10 s de trafic léger, 30 s de
+ * rafale, 10 s de silence. Les messages sont répartis entre les robots à tour de rôle ;
+ * chaque changement de statut bascule un robot entre ONLINE et OFFLINE (STATUS_UPDATE,
+ * extension du serveur de test).
+ *
+ * La latence réception → affichage se lit côté client, dans l'histogramme message.render
+ * de Metrics : en JMX pendant la charge (jconsole), ou dans le fichier écrit à la
+ * déconnexion si l'application est lancée avec -Dpelo.metricsDump=fichier. Se connecter
+ * sous le compte ciblé avant de démarrer la charge. Serveur : -Dpelo.host / -Dpelo.port,
+ * comme le client.
+ *
+ * Usage : LoadGenerator cible [script] [nbRobots]
+ */
+public final class LoadGenerator {
+
+    private static final String DEFAULT_SCRIPT = "10:20:5,30:200:50,10:0:0";
+    private static final long TICK_MS = 10;
+
+    /** Une phase du script : débits à tenir pendant {@code seconds} secondes. */
+    private record Phase(int seconds, double messagesPerSecond, double statusesPerSecond) {
+
+        static List<Phase> parse(String script) {
+            List<Phase> phases = new ArrayList<>();
+            for (String step : script.split(",")) {
+                String[] parts = step.trim().split(":");
+                if (parts.length != 3)
+                    throw new IllegalArgumentException("Phase invalide (durée:messages/s:statuts/s) : " + step);
+                phases.add(new Phase(Integer.parseInt(parts[0]),
+                        Double.parseDouble(parts[1]), Double.parseDouble(parts[2])));
+            }
+            return phases;
+        }
+    }
+
+    private final String target;
+    private final List<SocketService> bots = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final boolean[] online;
+    private final AtomicLong failed = new AtomicLong();
+    private int nextSender;
+    private int nextStatus;
+    private long messageSeq;
+
+    private LoadGenerator(String target, int botCount) {
+        this.target = target;
+        this.online = new boolean[botCount];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage : LoadGenerator cible [script] [nbRobots]");
+            System.exit(2);
+        }
+        List<Phase> phases = Phase.parse(args.length > 1 ? args[1] : DEFAULT_SCRIPT);
+        int botCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        LoadGenerator generator = new LoadGenerator(args[0], botCount);
+        generator.connect(botCount);
+        try {
+            for (int i = 0; i < phases.size(); i++)
+                generator.run(i + 1, phases.get(i));
+        } finally {
+            generator.disconnect();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // CONNEXION DES ROBOTS
+    // ═══════════════════════════════════════════════════════
+
+    private void connect(int count) throws Exception {
+        CountDownLatch loggedIn = new CountDownLatch(count);
+        CompletableFuture<User[]> users = new CompletableFuture<>();
+        for (int i = 0; i < count; i++) {
+            String name = String.format("bot%03d", i + 1);
+            SocketService bot = new SocketService(Runnable::run);
+            boolean first = i == 0;
+            bot.connect(p -> {
+                switch (p.actionType()) {
+                    case ACK -> loggedIn.countDown();
+                    case USERS_LIST -> {
+                        if (first)
+                            users.complete(p.payloadAs(User[].class));
+                    }
+                    case ERROR -> System.err.println(name + " : " + p.getContent());
+                    default -> {
+                    }
+                }
+            });
+            bot.login(name, "x");
+            bots.add(bot);
+            names.add(name);
+            online[i] = true;
+        }
+        if (!loggedIn.await(10, TimeUnit.SECONDS))
+            throw new IllegalStateException("Pas de réponse du serveur (" + loggedIn.getCount() + " robots en attente)");
+
+        // Le serveur ne remet un message qu'à un destinataire connecté
+        bots.get(0).requestUsers(names.get(0));
+        User[] list = users.get(5, TimeUnit.SECONDS);
+        boolean targetOnline = false;
+        for (User u : list != null ? list : new User[0])
+            targetOnline |= target.equalsIgnoreCase(u.getUsername()) && "ONLINE".equalsIgnoreCase(u.getStatus());
+        if (!targetOnline)
+            System.err.println("Attention : " + target + " n'est pas connecté, ses messages seront perdus");
+        System.out.println(count + " robots connectés, cible " + target);
+    }
+
+    private void disconnect() {
+        for (SocketService bot : bots)
+            bot.disconnect();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // PHASES
+    // ═══════════════════════════════════════════════════════
+
+    /** Tient les débits de la phase : à chaque tick, envoie ce qui est dû depuis son début. */
+    private void run(int number, Phase phase) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(phase.seconds());
+        long messages = 0;
+        long statuses = 0;
+        long failedBefore = failed.get();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            double elapsed = (now - start) / 1e9;
+            for (long due = (long) (elapsed * phase.messagesPerSecond()); messages < due; messages++)
+                sendMessage();
+            for (long due = (long) (elapsed * phase.statusesPerSecond()); statuses < due; statuses++)
+                toggleStatus();
+            Thread.sleep(TICK_MS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("phase %d : %d s, messages %d (%.0f/s visé %.0f), statuts %d (%.0f/s visé %.0f), échecs %d%n",
+                number, phase.seconds(), messages, messages / seconds, phase.messagesPerSecond(),
+                statuses, statuses / seconds, phase.statusesPerSecond(), failed.get() - failedBefore);
+    }
+
+    private void sendMessage() {
+        int i = nextSender;
+        nextSender = (nextSender + 1) % bots.size();
+        long n = ++messageSeq;
+        send(i, new Packet("SEND_MESSAGE", names.get(i), target,
+                "Message de charge n°" + n + " — " + names.get(i) + " écrit à " + target));
+    }
+
+    private void toggleStatus() {
+        int i = nextStatus;
+        nextStatus = (nextStatus + 1) % bots.size();
+        online[i] = !online[i];
+        send(i, new Packet("STATUS_UPDATE", names.get(i), null, online[i] ? "ONLINE" : "OFFLINE"));
+    }
+
+    private void send(int bot, Packet packet) {
+        bots.get(bot).send(packet).whenComplete((v, e) -> {
+            if (e != null)
+                failed.incrementAndGet();
+        });
+    }
+}
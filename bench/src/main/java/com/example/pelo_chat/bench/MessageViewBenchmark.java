@@ -0,0 +1,148 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.PeloTheme;
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.view.MessageCell;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Ouverture d'une conversation de N messages (100 000 par défaut).
+ *
+ * Compare la vue virtualisée (ListView + MessageCell) à l'ancienne approche
+ * (un sous-arbre HBox/VBox/Label par message dans une VBox) :
+ *  - temps d'ouverture (setItems + CSS + layout du premier affichage)
+ *  - nombre de nœuds du graphe de scène
+ *  - mémoire retenue après GC
+ *  - temps moyen d'un saut de défilement (virtualisée uniquement)
+ *
+ * Usage : MessageViewBenchmark [nbMessages] [virtual|legacy]
+ * Nécessite un affichage (ou Monocle) pour démarrer le toolkit JavaFX.
+ */
+public final class MessageViewBenchmark {
+
+    private static final int SCROLL_JUMPS = 1_000;
+
+    private MessageViewBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        boolean legacy = args.length > 1 && "legacy".equalsIgnoreCase(args[1]);
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        ObservableList<ChatMessage> messages = generate(count);
+        long heapBefore = usedHeap();
+
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                run(messages, legacy, heapBefore);
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    private static void run(ObservableList<ChatMessage> messages, boolean legacy, long heapBefore) {
+        long t0 = System.nanoTime();
+        Parent root = legacy ? legacyView(messages) : virtualView(messages);
+        Scene scene = new Scene(root, 960, 680);
+        PeloTheme.applyTo(scene);
+        root.applyCss();
+        root.layout();
+        long openNanos = System.nanoTime() - t0;
+
+        long heapAfter = usedHeap();
+        System.out.printf("mode=%s messages=%d%n", legacy ? "legacy" : "virtual", messages.size());
+        System.out.printf("open_ms=%.1f%n", openNanos / 1e6);
+        System.out.printf("scene_nodes=%d%n", countNodes(root));
+        System.out.printf("retained_mb=%.1f%n", (heapAfter - heapBefore) / (1024.0 * 1024.0));
+
+        if (root instanceof ListView<?> list) {
+            Random random = new Random(42);
+            long s0 = System.nanoTime();
+            for (int i = 0; i < SCROLL_JUMPS; i++) {
+                list.scrollTo(random.nextInt(messages.size()));
+                root.layout();
+            }
+            System.out.printf("scroll_jump_us=%.1f%n", (System.nanoTime() - s0) / 1e3 / SCROLL_JUMPS);
+        }
+    }
+
+    private static ListView<ChatMessage> virtualView(ObservableList<ChatMessage> messages) {
+        ListView<ChatMessage> list = new ListView<>();
+        list.getStyleClass().add("pelo-message-list");
+        list.setCellFactory(l -> new MessageCell(() -> "AB", () -> "pelo-avatar-navy"));
+        list.setItems(messages);
+        list.scrollTo(messages.size() - 1);
+        return list;
+    }
+
+    /** Reproduit l'ancien rendu : un sous-arbre complet par message. */
+    private static ScrollPane legacyView(ObservableList<ChatMessage> messages) {
+        VBox container = new VBox(25);
+        for (ChatMessage msg : messages) {
+            Label text = new Label(msg.content());
+            text.setWrapText(true);
+            VBox bubble = new VBox(text);
+            bubble.getStyleClass().addAll("pelo-bubble",
+                    msg.mine() ? "pelo-bubble-sent" : "pelo-bubble-received");
+            Label time = new Label(msg.time());
+            time.getStyleClass().add("pelo-meta");
+            VBox content = new VBox(5, bubble, time);
+            HBox wrapper = new HBox(content);
+            wrapper.setAlignment(msg.mine() ? Pos.TOP_RIGHT : Pos.TOP_LEFT);
+            container.getChildren().add(wrapper);
+        }
+        ScrollPane scroll = new ScrollPane(container);
+        scroll.setFitToWidth(true);
+        scroll.setVvalue(1.0);
+        return scroll;
+    }
+
+    private static ObservableList<ChatMessage> generate(int count) {
+        Random random = new Random(7);
+        ChatMessage[] msgs = new ChatMessage[count];
+        for (int i = 0; i < count; i++) {
+            boolean mine = random.nextBoolean();
+            String content = "Message " + i + " — " + "lorem ipsum ".repeat(1 + random.nextInt(12));
+            String time = String.format("%02d:%02d", (i / 60) % 24, i % 60);
+            msgs[i] = new ChatMessage(mine ? "moi" : "alice", content, mine, time);
+        }
+        return FXCollections.observableArrayList(msgs);
+    }
+
+    private static int countNodes(Node node) {
+        int n = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable())
+                n += countNodes(child);
+        }
+        return n;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.storage.SearchIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Index de recherche sur un historique synthétique de N messages (1 000 000 par défaut)
+ * répartis sur 200 conversations, vocabulaire français à fréquences de Zipf :
+ *  - temps d'indexation et taille de search.idx
+ *  - temps de rechargement à l'ouverture
+ *  - latence des requêtes (1 à 3 termes, fréquents ou rares), médiane et p99
+ *
+ * Usage : SearchBenchmark [nbMessages]
+ */
+public final class SearchBenchmark {
+
+    private static final int PEERS = 200;
+    private static final int QUERY_ROUNDS = 200;
+
+    private static final String[] WORDS = {
+            "réunion", "demain", "projet", "équipe", "bureau", "client", "rapport", "matin", "soir",
+            "semaine", "dossier", "présentation", "budget", "réponse", "question", "document", "appel",
+            "déjeuner", "café", "retard", "planning", "livraison", "facture", "contrat", "courriel",
+            "serveur", "déploiement", "version", "correctif", "tâche", "réseau", "connexion", "mot",
+            "passe", "écran", "clavier", "vacances", "congé", "médecin", "école", "enfants", "voiture",
+            "train", "gare", "aéroport", "hôtel", "billet", "réservation", "anniversaire", "cadeau",
+            "fête", "musique", "film", "livre", "journal", "météo", "pluie", "soleil", "froid", "chaud",
+            "Dakar", "Thiès", "Saint-Louis", "Ziguinchor", "marché", "boutique", "prix", "paiement",
+            "wave", "orange", "transfert", "merci", "bonjour", "bonsoir", "salut", "d'accord", "parfait",
+            "urgent", "important", "possible", "impossible", "rapide", "lent", "nouveau", "ancien",
+    };
+
+    private static final String[] QUERIES = {
+            "réunion", "reunion demain", "projet équipe budget", "Ziguinchor", "déploiement correctif",
+            "anniversaire cadeau fête", "merci", "hotel reservation", "facture paiement wave",
+    };
+
+    private SearchBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = Files.createTempDirectory("pelo-search-bench");
+        Path file = dir.resolve(SearchIndex.FILE_NAME);
+        try {
+            Random rnd = new Random(42);
+            double[] zipf = zipfCdf(WORDS.length);
+            long t0 = System.nanoTime();
+            try (SearchIndex index = SearchIndex.open(file)) {
+                int[] ranks = new int[PEERS];
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < messages; i++) {
+                    text.setLength(0);
+                    int words = 3 + rnd.nextInt(12);
+                    for (int w = 0; w < words; w++)
+                        text.append(WORDS[pick(zipf, rnd)]).append(w % 4 == 3 ? ", " : " ");
+                    int peer = rnd.nextInt(PEERS);
+                    index.add("user" + peer, ranks[peer]++, text.toString());
+                }
+            }
+            long buildNanos = System.nanoTime() - t0;
+            System.out.printf("messages=%d build_s=%.1f (%.1f us/msg) file_mb=%.1f%n",
+                    messages, buildNanos / 1e9, buildNanos / 1e3 / messages, Files.size(file) / 1e6);
+
+            long t1 = System.nanoTime();
+            try (SearchIndex index = SearchIndex.open(file)) {
+                System.out.printf("reopen_ms=%.0f docs=%d terms=%d%n",
+                        (System.nanoTime() - t1) / 1e6, index.documentCount(), index.termCount());
+
+                for (String q : QUERIES) {
+                    long[] nanos = new long[QUERY_ROUNDS];
+                    List<SearchIndex.Hit> hits = List.of();
+                    for (int r = 0; r < QUERY_ROUNDS; r++) {
+                        long s = System.nanoTime();
+                        hits = index.search(q, 50);
+                        nanos[r] = System.nanoTime() - s;
+                    }
+                    Arrays.sort(nanos);
+                    System.out.printf("query=%-28s hits=%2d p50_ms=%6.2f p99_ms=%6.2f%n", "\"" + q + "\"",
+                            hits.size(), nanos[QUERY_ROUNDS / 2] / 1e6, nanos[QUERY_ROUNDS * 99 / 100] / 1e6);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** Répartition cumulée de Zipf (s = 1) sur n mots. */
+    private static double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            cdf[i] = sum += 1.0 / (i + 1);
+        for (int i = 0; i < n; i++)
+            cdf[i] /= sum;
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, Random rnd) {
+        int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+        return Math.min(cdf.length - 1, i < 0 ? -i - 1 : i);
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.pelo_chat.bench;
+
+import com.example.pelo_chat.service.ConnectionCompression;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.JsonLineCodec;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+import com.google.gson.Gson;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur local minimal qui parle le protocole de PELO Chat, pour les bancs de mesure
+ * (pas de persistance, tout compte est accepté).
+ *
+ * Chaque connexion commence en JSON ; un paquet HELLO en tête bascule la connexion sur
+ * le codec annoncé, compressé si le mode se termine par "+deflate". Gère LOGIN, REGISTER, GET_USERS, SEND_MESSAGE et LOGOUT, et
+ * diffuse les STATUS_UPDATE à la connexion / déconnexion.
+ *
+ * Extension propre au serveur de test : un client connecté peut envoyer un
+ * STATUS_UPDATE (content = nouveau statut), diffusé aux autres comme un changement de
+ * présence. {@link LoadGenerator} s'en sert pour simuler des rafales de présence sans
+ * ouvrir ni fermer de connexions.
+ *
+ * Usage autonome : StandInServer [port] [nbComptes]
+ *   port      : -Dpelo.port, sinon 8080, comme le client
+ *   nbComptes : comptes hors ligne créés au démarrage (voir {@link #seedUsers})
+ */
+public final class StandInServer implements Closeable {
+
+    /** Port du client par défaut (-Dpelo.port, sinon 8080). */
+    public static final int DEFAULT_PORT = Integer.getInteger("pelo.port", 8080);
+
+    private record Account(String fullName) {
+    }
+
+    private final Gson gson = JsonAdapters.GSON;
+    private final ServerSocket server;
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Connection> online = new ConcurrentHashMap<>();
+    private final AtomicLong messagesRouted = new AtomicLong();
+    private volatile boolean running = true;
+
+    public StandInServer(int port) throws IOException {
+        server = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptLoop, "standin-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (StandInServer server = new StandInServer(port)) {
+            if (args.length > 1)
+                server.seedUsers(Integer.parseInt(args[1]));
+            System.out.println("Serveur de test en écoute sur le port " + port + " (Ctrl+C pour arrêter)");
+            Thread.currentThread().join();
+        }
+    }
+
+    /** Crée {@code count} comptes hors ligne (user00001…), pour simuler un gros annuaire. */
+    public void seedUsers(int count) {
+        for (int i = 1; i <= count; i++) {
+            String name = String.format("user%05d", i);
+            accounts.put(name, new Account("Utilisateur " + i + " (service " + (i % 40) + ")"));
+        }
+    }
+
+    /** Nombre de SEND_MESSAGE remis à un destinataire connecté. */
+    public long messagesRouted() {
+        return messagesRouted.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Connection c = new Connection(socket);
+                Thread t = new Thread(c::run, "standin-conn");
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                if (running)
+                    System.err.println("Accept échoué : " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        for (Connection c : online.values())
+            c.close();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // CONNEXION CLIENT
+    // ═══════════════════════════════════════════════════════
+
+    private final class Connection {
+
+        private final Socket socket;
+        private InputStream in;
+        private OutputStream out;
+        private PacketCodec codec = new JsonLineCodec(gson);
+        private String username;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void run() {
+            try {
+                // Première ligne lue octet par octet : le lecteur JSON en flux lirait
+                // par avance des octets qui sont peut-être déjà au format binaire
+                Packet first = codec.decode(ByteBuffer.wrap(readLine()));
+                if (first != null && "HELLO".equals(first.getAction())) {
+                    String mode = first.getContent() != null ? first.getContent() : "";
+                    codec = PacketCodec.forName(mode, gson);
+                    if (mode.endsWith(PacketCodec.DEFLATE_SUFFIX)) {
+                        // Les octets déjà lus d'avance par in sont compressés eux aussi
+                        ConnectionCompression compression = new ConnectionCompression();
+                        in = new BufferedInputStream(compression.wrap(in));
+                        out = new BufferedOutputStream(compression.wrap(out));
+                    }
+                } else if (first != null && !handle(first)) {
+                    return;
+                }
+                Packet packet;
+                while ((packet = codec.read(in)) != null) {
+                    if (!handle(packet))
+                        break;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Socket déjà fermé par le serveur (envoi en échec, reconnexion) : rien à signaler
+                if (running && !socket.isClosed())
+                    System.err.println("Connexion client perdue : " + e.getMessage());
+            } finally {
+                close();
+                if (username != null && online.remove(username, this))
+                    broadcastStatus(username, "OFFLINE");
+            }
+        }
+
+        private byte[] readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) >= 0 && b != '\n')
+                line.write(b);
+            return line.toByteArray();
+        }
+
+        /** Traite un paquet ; false pour fermer la connexion. */
+        private boolean handle(Packet p) {
+            switch (p.getAction() == null ? "" : p.getAction()) {
+                case "LOGIN" -> {
+                    username = p.getFrom();
+                    accounts.putIfAbsent(username, new Account(username));
+                    Connection previous = online.put(username, this);
+                    if (previous != null && previous != this)
+                        previous.close();
+                    send(new Packet("ACK", "server", username, "OK"));
+                    broadcastStatus(username, "ONLINE");
+                }
+                case "REGISTER" -> {
+                    accounts.put(p.getFrom(), new Account(p.getTo()));
+                    send(new Packet("REGISTER_OK", "server", p.getFrom(), "OK"));
+                }
+                case "GET_USERS" -> {
+                    List<Map<String, String>> users = new ArrayList<>();
+                    accounts.forEach((name, account) -> {
+                        if (name.equals(p.getFrom()))
+                            return;
+                        Map<String, String> u = new LinkedHashMap<>();
+                        u.put("username", name);
+                        u.put("fullName", account.fullName());
+                        u.put("status", online.containsKey(name) ? "ONLINE" : "OFFLINE");
+                        users.add(u);
+                    });
+                    send(new Packet("USERS_LIST", "server", p.getFrom(), gson.toJson(users)));
+                }
+                case "SEND_MESSAGE" -> {
+                    Connection target = p.getTo() != null ? online.get(p.getTo()) : null;
+                    if (target != null) {
+                        target.send(new Packet("MESSAGE_RECEIVED", p.getFrom(), p.getTo(), p.getContent()));
+                        messagesRouted.incrementAndGet();
+                    }
+                }
+                case "STATUS_UPDATE" -> {
+                    if (username != null && p.getContent() != null)
+                        broadcastStatus(username, p.getContent());
+                }
+                case "LOGOUT" -> {
+                    return false;
+                }
+                default -> send(new Packet("ERROR", "server", username, "Action inconnue : " + p.getAction()));
+            }
+            return true;
+        }
+
+        synchronized void send(Packet packet) {
+            try {
+                codec.write(packet, out);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void broadcastStatus(String user, String status) {
+        Map<String, String> data = Map.of("username", user, "status", status);
+        Packet packet = new Packet("STATUS_UPDATE", "server", null, gson.toJson(data));
+        for (Connection c : online.values()) {
+            if (!user.equals(c.username))
+                c.send(packet);
+        }
+    }
+}
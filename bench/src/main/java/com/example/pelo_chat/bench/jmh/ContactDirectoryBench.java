@@ -0,0 +1,85 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.example.pelo_chat.model.Contact;
+import com.example.pelo_chat.model.ContactDirectory;
+import com.example.pelo_chat.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annuaire des contacts de {@code users} comptes :
+ *  - lookup       : contact d'un expéditeur (casse variable), à chaque message reçu
+ *  - updateStatus : STATUS_UPDATE appliqué en place (chaque passage sur l'annuaire
+ *                   inverse le statut de tous les contacts)
+ *  - replaceAll   : annuaire remplacé par un USERS_LIST complet (mêmes instances)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContactDirectoryBench {
+
+    @Param({"10000"})
+    public int users;
+
+    private ContactDirectory directory;
+    private List<Contact> contacts;
+    private String[] names;
+    private int next;
+    private boolean online; // statut appliqué pendant ce passage sur l'annuaire
+
+    @Setup
+    public void setUp() {
+        User[] list = Fixtures.users(users);
+        contacts = Fixtures.contacts(list);
+        directory = new ContactDirectory();
+        directory.replaceAll(contacts);
+        // Ordre pseudo-aléatoire, une casse sur deux modifiée
+        names = new String[users];
+        for (int i = 0; i < users; i++) {
+            String name = list[(int) ((i * 7919L) % users)].getUsername();
+            names[i] = i % 2 == 0 ? name : name.toUpperCase();
+        }
+    }
+
+    private String nextName() {
+        String name = names[next];
+        if (++next == names.length) {
+            next = 0;
+            online = !online;
+        }
+        return name;
+    }
+
+    @Benchmark
+    public Contact lookup() {
+        return directory.get(nextName());
+    }
+
+    @Benchmark
+    public Contact updateStatus() {
+        String status = online ? "ONLINE" : "OFFLINE";
+        return directory.updateStatus(nextName(), status);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ContactDirectory replaceAll() {
+        directory.replaceAll(contacts);
+        return directory;
+    }
+}
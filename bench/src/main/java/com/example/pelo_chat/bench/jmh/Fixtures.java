@@ -0,0 +1,66 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.Contact;
+import com.example.pelo_chat.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Données synthétiques communes aux benchmarks JMH (déterministes d'un fork à l'autre). */
+final class Fixtures {
+
+    private static final String[] TEXTS = {
+            "Salut, ça va ?",
+            "On se retrouve à 18h devant la gare.",
+            "Je t'envoie le rapport ce soir, le client attend la nouvelle version du contrat.",
+            "ok",
+            "Merci ! Bonne soirée 🙂",
+            "La réunion de demain est déplacée à 10h, salle B. Pense à apporter le budget.",
+    };
+
+    private Fixtures() {}
+
+    /** Annuaire tel qu'envoyé par le serveur : un compte sur trois en ligne. */
+    static User[] users(int n) {
+        User[] users = new User[n];
+        for (int i = 0; i < n; i++) {
+            User u = new User();
+            u.setUsername("user" + i);
+            u.setFullName("Utilisateur Numéro " + i);
+            u.setStatus(i % 3 == 0 ? "ONLINE" : "OFFLINE");
+            users[i] = u;
+        }
+        return users;
+    }
+
+    /** Contacts construits comme ChatController.populateContacts. */
+    static List<Contact> contacts(User[] users) {
+        List<Contact> contacts = new ArrayList<>(users.length);
+        for (User u : users)
+            contacts.add(new Contact(u.getUsername(), u.getFullName(), "pelo-avatar-green", "", false, u.getStatus()));
+        return contacts;
+    }
+
+    /** i-ème message d'une conversation entre alice et bob. */
+    static ChatMessage message(int i) {
+        boolean mine = i % 2 == 0;
+        return new ChatMessage(mine ? "alice" : "bob", TEXTS[i % TEXTS.length], mine,
+                String.format("%02d:%02d", (i / 60) % 24, i % 60));
+    }
+
+    /** Supprime un dossier temporaire et son contenu. */
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir))
+            return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.storage.HistoryStore;
+import com.example.pelo_chat.view.PagedConversation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historique local d'une conversation de {@code messages} messages, encore dans le
+ * journal ou déjà scellé dans l'archive ({@code sealed}) :
+ *  - append   : enregistrement d'un message envoyé ou reçu
+ *  - lastPage : dernière page, lue à l'ouverture de la conversation
+ *  - readAll  : conversation entière (export, recherche, migration)
+ *  - reopen   : ouverture à froid du stockage puis dernière page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HistoryStoreBench {
+
+    private static final String PEER = "bob";
+    private static final String WRITER = "carol"; // conversation qui grossit pendant append
+
+    @Param({"1000", "100000"})
+    public int messages;
+
+    @Param({"false", "true"})
+    public boolean sealed;
+
+    private Path root;
+    private HistoryStore store;
+    private int appended;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("pelo-jmh-history");
+        try (HistoryStore fill = new HistoryStore(root)) {
+            for (int i = 0; i < messages; i++)
+                fill.append(PEER, Fixtures.message(i));
+            if (sealed)
+                fill.archive(PEER);
+        }
+        store = new HistoryStore(root);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int append() throws IOException {
+        return store.append(WRITER, Fixtures.message(appended++));
+    }
+
+    @Benchmark
+    public List<ChatMessage> lastPage() throws IOException {
+        int end = store.count(PEER);
+        return store.read(PEER, Math.max(store.first(PEER), end - PagedConversation.DEFAULT_PAGE_SIZE), end);
+    }
+
+    @Benchmark
+    public List<ChatMessage> readAll() throws IOException {
+        return store.readAll(PEER);
+    }
+
+    @Benchmark
+    public List<ChatMessage> reopen() throws IOException {
+        try (HistoryStore cold = new HistoryStore(root)) {
+            int end = cold.count(PEER);
+            return cold.read(PEER, Math.max(cold.first(PEER), end - PagedConversation.DEFAULT_PAGE_SIZE), end);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare deux fichiers de résultats JMH (-rf json), par exemple ceux de deux versions :
+ * une ligne par benchmark et jeu de paramètres, score avant / après et écart.
+ * Les écarts au-delà du seuil (10 % par défaut) sont signalés ; un temps qui augmente
+ * est une régression (les benchmarks de la suite sont tous en temps moyen par opération).
+ *
+ * Usage : JmhCompare avant.json après.json [seuil %]
+ */
+public final class JmhCompare {
+
+    private record Score(double value, String unit) {
+    }
+
+    private JmhCompare() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : JmhCompare avant.json après.json [seuil %]");
+            System.exit(2);
+        }
+        Map<String, Score> before = load(Path.of(args[0]));
+        Map<String, Score> after = load(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        int regressions = 0;
+        System.out.printf("%-62s %14s %14s %8s%n", "benchmark", "avant", "après", "écart");
+        for (Map.Entry<String, Score> e : after.entrySet()) {
+            Score b = before.get(e.getKey());
+            Score a = e.getValue();
+            if (b == null) {
+                System.out.printf("%-62s %14s %14s %8s%n", e.getKey(), "-", format(a), "nouveau");
+                continue;
+            }
+            double delta = (a.value - b.value) / b.value * 100;
+            String flag = "";
+            if (delta > threshold) {
+                flag = "  ← régression";
+                regressions++;
+            } else if (delta < -threshold) {
+                flag = "  ← gain";
+            }
+            System.out.printf("%-62s %14s %14s %+7.1f%%%s%n", e.getKey(), format(b), format(a), delta, flag);
+        }
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name))
+                System.out.printf("%-62s %14s %14s %8s%n", name, format(before.get(name)), "-", "disparu");
+        }
+        System.out.println(regressions + " régression(s) au-delà de " + threshold + " %");
+    }
+
+    private static String format(Score s) {
+        return String.format("%.1f %s", s.value, s.unit);
+    }
+
+    /** Scores indexés par "Classe.méthode{param=valeur,...}" (sans le nom de paquet). */
+    private static Map<String, Score> load(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        try (Reader in = Files.newBufferedReader(file)) {
+            for (JsonElement element : JsonParser.parseReader(in).getAsJsonArray()) {
+                JsonObject run = element.getAsJsonObject();
+                String name = run.get("benchmark").getAsString();
+                name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+                if (run.has("params")) {
+                    Map<String, String> params = new LinkedHashMap<>();
+                    run.getAsJsonObject("params").entrySet()
+                            .forEach(p -> params.put(p.getKey(), p.getValue().getAsString()));
+                    name += params.toString().replace(" ", "");
+                }
+                JsonObject metric = run.getAsJsonObject("primaryMetric");
+                scores.put(name, new Score(metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString()));
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.example.pelo_chat.service.PacketDecoder;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin d'un paquet dans SocketService, sans réseau :
+ *  - encode     : trame d'un SEND_MESSAGE (thread d'écriture, PacketWriter)
+ *  - decode     : trame isolée → Packet (NioTransport)
+ *  - read       : flux → Packet (SocketTransport)
+ *  - receive    : trame → Packet → payload ChatMessage, tout ce qui précède la
+ *                 livraison au thread JavaFX
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PacketCodecBench {
+
+    @Param({"json", "binary"})
+    public String codecName;
+
+    private PacketCodec codec;
+    private PacketDecoder decoder;
+    private Packet outgoing;
+    private byte[] incoming;
+
+    @Setup
+    public void setUp() {
+        codec = PacketCodec.forName(codecName, JsonAdapters.GSON);
+        decoder = new PacketDecoder(JsonAdapters.GSON);
+        outgoing = new Packet("SEND_MESSAGE", "alice", "bob",
+                "Salut Bob, ça va ? On se retrouve à 18h devant la gare.");
+        incoming = codec.encode(new Packet("MESSAGE_RECEIVED", "bob", "alice",
+                "Oui, à tout à l'heure ! Je prends le train de 17h30."));
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(outgoing);
+    }
+
+    @Benchmark
+    public Packet decode() throws IOException {
+        return codec.decode(ByteBuffer.wrap(incoming));
+    }
+
+    @Benchmark
+    public Packet read() throws IOException {
+        return codec.read(new ByteArrayInputStream(incoming));
+    }
+
+    @Benchmark
+    public Packet receive() throws IOException {
+        Packet packet = codec.decode(ByteBuffer.wrap(incoming));
+        decoder.decodePayload(packet);
+        return packet;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.pelo_chat.bench.jmh;
+
+import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.service.PacketDecoder;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * USERS_LIST d'un annuaire de {@code users} comptes, tel que reçu à la connexion :
+ *  - payload : contenu déjà extrait → User[] (PacketDecoder seul)
+ *  - receive : trame JSON complète → Packet → User[] (chemin du thread réseau)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UsersListBench {
+
+    @Param({"10000"})
+    public int users;
+
+    private PacketCodec codec;
+    private PacketDecoder decoder;
+    private String content;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        codec = PacketCodec.forName("json", JsonAdapters.GSON);
+        decoder = new PacketDecoder(JsonAdapters.GSON);
+        content = JsonAdapters.GSON.toJson(Fixtures.users(users));
+        frame = codec.encode(new Packet("USERS_LIST", null, null, content));
+    }
+
+    @Benchmark
+    public Object payload() {
+        Packet packet = new Packet("USERS_LIST", null, null, content);
+        decoder.decodePayload(packet);
+        return packet.payloadAs(User[].class);
+    }
+
+    @Benchmark
+    public Object receive() throws IOException {
+        Packet packet = codec.decode(ByteBuffer.wrap(frame));
+        decoder.decodePayload(packet);
+        return packet.payloadAs(User[].class);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.pelo_chat;
 
+import com.example.pelo_chat.metrics.Metrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -10,6 +11,9 @@ public class HelloApplication extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
+        // Mesures consultables par JMX (jconsole) pendant toute la session
+        Metrics.CLIENT.registerMBean();
+
         FXMLLoader loader = new FXMLLoader(
                 getClass().getResource("/com/example/pelo_chat/auth.fxml"));
         Parent root = loader.load();
@@ -20,4 +24,9 @@ public class HelloApplication extends Application {
         stage.setScene(new Scene(root));
         stage.show();
     }
+
+    @Override
+    public void stop() {
+        Metrics.CLIENT.dumpIfRequested();
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.pelo_chat.controller;
 
+import com.example.pelo_chat.service.PacketDispatcher;
 import com.example.pelo_chat.service.SocketService;
+import com.example.pelo_chat.utils.Action;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Cursor;
@@ -138,16 +140,16 @@ public class AuthController {
         }
 
         try {
-            socketService.connect(packet -> {
-                if ("ACK".equals(packet.getAction())) {
-                    if (rememberMeCheck.isSelected()) {
-                        saveSession(username, passwordField.getText());
-                    }
-                    navigateToChat(username);
-                } else {
-                    showError(packet.getContent());
-                }
-            });
+            // Toute autre réponse que ACK est un refus : son contenu est le message d'erreur
+            PacketDispatcher dispatcher = new PacketDispatcher()
+                    .on(Action.ACK, packet -> {
+                        if (rememberMeCheck.isSelected()) {
+                            saveSession(username, passwordField.getText());
+                        }
+                        navigateToChat(username);
+                    })
+                    .otherwise(packet -> showError(packet.getContent()));
+            socketService.connect(dispatcher::dispatch);
             socketService.login(username, passwordField.getText());
         } catch (Exception e) {
             showError("Impossible de joindre le serveur");
@@ -173,14 +175,13 @@ public class AuthController {
         }
 
         try {
-            socketService.connect(packet -> {
-                if ("REGISTER_OK".equals(packet.getAction())) {
-                    showError("Inscription réussie ! Connectez-vous.");
-                    showLoginMode();
-                } else {
-                    showError(packet.getContent());
-                }
-            });
+            PacketDispatcher dispatcher = new PacketDispatcher()
+                    .on(Action.REGISTER_OK, packet -> {
+                        showError("Inscription réussie ! Connectez-vous.");
+                        showLoginMode();
+                    })
+                    .otherwise(packet -> showError(packet.getContent()));
+            socketService.connect(dispatcher::dispatch);
             socketService.register(username, fullNameField.getText().trim(), passwordField.getText());
         } catch (Exception e) {
             showError("Impossible de joindre le serveur");
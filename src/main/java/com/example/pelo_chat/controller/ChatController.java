@@ -1,40 +1,70 @@
 package com.example.pelo_chat.controller;
 
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.Contact;
+import com.example.pelo_chat.model.ContactDirectory;
+import com.example.pelo_chat.model.ContactPrefixIndex;
+import com.example.pelo_chat.model.ConversationSummary;
+import com.example.pelo_chat.model.StatusEvent;
 import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.service.PacketDispatcher;
+import com.example.pelo_chat.service.PresenceAggregator;
 import com.example.pelo_chat.service.SocketService;
+import com.example.pelo_chat.storage.HistoryCompactor;
+import com.example.pelo_chat.storage.HistoryStore;
+import com.example.pelo_chat.storage.SearchIndex;
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.LatencyHistogram;
 import com.example.pelo_chat.utils.Packet;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.example.pelo_chat.view.ConversationCache;
+import com.example.pelo_chat.view.MessageCell;
+import com.example.pelo_chat.view.PagedConversation;
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
+import javafx.scene.control.skin.ListViewSkin;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
+import javafx.scene.input.KeyCode;
 import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Contrôleur principal de l'interface de chat (chat.fxml).
@@ -42,7 +72,7 @@ import java.util.Map;
  * Responsabilités :
  *  - Afficher la liste des contacts reçue du serveur (USERS_LIST)
  *  - Gérer l'envoi et la réception de messages en temps réel
- *  - Persister l'historique des conversations localement (JSON dans ~/.pelo_chat/)
+ *  - Persister l'historique des conversations localement (journaux dans ~/.pelo_chat/)
  *  - Mettre à jour le statut en ligne/hors ligne des contacts (STATUS_UPDATE)
  *  - Fournir le sélecteur d'emojis (natif OS ou popup custom)
  *
@@ -55,7 +85,9 @@ public class ChatController {
     @FXML
     private VBox chatListContainer;
     @FXML
-    private VBox messageContainer;
+    private VBox searchResultsContainer;
+    @FXML
+    private ListView<ChatMessage> messageList;
     @FXML
     private TextField messageField;
     @FXML
@@ -93,19 +125,80 @@ public class ChatController {
     private SocketService socketService; // Connexion TCP partagée avec AuthController
     private Popup emojiPickerPopup;      // Popup emoji (construit une fois, réutilisé)
     private Path historyDir;             // ~/.pelo_chat/{user}/messages/
+    private HistoryStore historyStore;   // Journaux par pair (thread historyIo uniquement, null si indisponible)
+    private SearchIndex searchIndex;     // Index plein texte de l'historique (thread historyIo, null si indisponible)
+
+    // Toutes les lectures / écritures d'historique passent par ce thread, dans l'ordre
+    // de soumission : une lecture voit toujours les ajouts demandés avant elle
+    private final ExecutorService historyThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pelo-history");
+        t.setDaemon(true);
+        return t;
+    });
+    // Soumission à historyThread ; après closeHistory (déconnexion), les tâches encore
+    // demandées par l'interface (pages, recherche, paquets en retard) sont ignorées
+    private final Executor historyIo = task -> {
+        try {
+            historyThread.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // Session fermée : plus d'historique à lire ni à écrire
+        }
+    };
 
     private Contact currentContact; // Contact dont la conversation est affichée
+    private PagedConversation shownConversation; // Fenêtre d'historique liée à messageList
+    private VirtualFlow<?> messageFlow;           // Défilement de messageList (pagination)
     private HBox activeItem;        // Élément de liste actuellement surligné
 
-    // contacts     : liste ordonnée des contacts telle que renvoyée par le serveur
-    // history      : messages par peer (clé = username du peer)
+    // contacts     : annuaire ordonné (ordre du serveur), accès O(1) insensible à la casse
+    // history      : conversations récemment ouvertes (LRU), une fenêtre de pages chacune
+    // summaries    : dernier message + nombre de messages par peer (aperçus de la liste)
     // itemByPeer   : référence vers l'HBox de liste pour mettre à jour le preview
     // statusDotByPeer : référence vers le Circle coloré pour changer online/offline
-    private final List<Contact> contacts = new ArrayList<>();
-    private final Map<String, List<ChatMessage>> history = new HashMap<>();
+    private final ContactDirectory contacts = new ContactDirectory();
+    private final ConversationCache history = new ConversationCache(CONVERSATION_CACHE_SIZE);
+    private final Map<String, ConversationSummary> summaries = new HashMap<>();
     private final Map<String, HBox> itemByPeer = new HashMap<>();
     private final Map<String, Circle> statusDotByPeer = new HashMap<>();
 
+    // Travail différé à la fin du lot de paquets en cours (voir handlePackets)
+    private boolean scrollPending;    // la conversation affichée a reçu un message
+    private boolean contactIndexDirty; // contacts ajoutés ou renommés : index de filtrage à refaire
+    private boolean mergeNextUsersList; // USERS_LIST de reprise : fusionner au lieu de remplacer
+
+    // Filtrage de la liste pendant la saisie : index par préfixe interrogé sur un thread
+    // dédié ; chaque frappe rend périmées les requêtes précédentes (filterGeneration)
+    private final ExecutorService contactFilterThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pelo-filter");
+        t.setDaemon(true);
+        return t;
+    });
+    // Soumission à contactFilterThread ; après la déconnexion, un lot de paquets déjà
+    // programmé peut encore demander un filtrage ou une reconstruction : ignorés
+    private final Executor contactFilterWorker = task -> {
+        try {
+            contactFilterThread.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // Session fermée : plus de liste à filtrer
+        }
+    };
+    private final AtomicInteger filterGeneration = new AtomicInteger();
+    private volatile ContactPrefixIndex contactIndex = ContactPrefixIndex.EMPTY;
+
+    // Rafales de STATUS_UPDATE (reconnexions en masse) : un seul statut par contact et
+    // par fenêtre, appliqués en un lot
+    private final PresenceAggregator presence =
+            new PresenceAggregator(e -> updateContactStatus(e.username(), e.status()));
+
+    // Paquets reçus, distribués par action (voir registerPacketHandlers)
+    private final PacketDispatcher dispatcher = new PacketDispatcher();
+
+    // Délai entre la réception d'un message (thread réseau) et la mise en page qui
+    // l'affiche (MESSAGE_RENDER)
+    private long[] awaitingRender = new long[256]; // instants de réception pas encore affichés
+    private int awaitingCount;
+    private Runnable renderProbe;                  // écouteur post-layout en place, sinon null
+
     // ── Emojis ───────────────────────────────────────────
     private static final String[] EMOJIS = {
             "😀", "😃", "😄", "😁", "😆", "😅", "😂", "🤣", "😊", "😇",
@@ -136,38 +229,46 @@ public class ChatController {
 
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
 
-    // ═══════════════════════════════════════════════════════
-    // MODÈLES INTERNES
-    // ═══════════════════════════════════════════════════════
+    /** Messages lus par page d'historique (-Dpelo.historyPageSize). */
+    private static final int HISTORY_PAGE_SIZE =
+            Integer.getInteger("pelo.historyPageSize", PagedConversation.DEFAULT_PAGE_SIZE);
 
-    /**
-     * Représentation locale d'un contact (construit à partir de User reçu du serveur).
-     * Immuable (record Java) : pour mettre à jour un champ (ex. status), on recrée un
-     * nouvel objet Contact via contacts.replaceAll(...).
-     */
-    private record Contact(
-            String username,    // Identifiant unique (sert de clé dans les maps)
-            String displayName, // Nom affiché (fullName si disponible, sinon username)
-            String initials,    // 1 ou 2 lettres pour l'avatar
-            String avatarStyle, // Classe CSS couleur de l'avatar (ex. "pelo-avatar-green")
-            String role,        // Rôle ou département (vide pour l'instant côté serveur)
-            boolean group,      // true si c'est un groupe (non utilisé pour l'instant)
-            String status) {    // "ONLINE" | "OFFLINE"
-        boolean isOnline() {
-            return "ONLINE".equalsIgnoreCase(status);
-        }
-    }
+    /** Pages gardées en mémoire par conversation ouverte (-Dpelo.historyMaxPages). */
+    private static final int HISTORY_MAX_PAGES =
+            Integer.getInteger("pelo.historyMaxPages", PagedConversation.DEFAULT_MAX_PAGES);
 
     /**
-     * Un message dans l'historique d'une conversation.
-     * Sérialisé en JSON pour la persistance locale.
+     * Rétention de l'historique local (-Dpelo.historyMaxAgeDays, -Dpelo.historyMaxMessages,
+     * -Dpelo.historyMaxBytes) ; sans limite par défaut.
      */
-    private record ChatMessage(
-            String from,    // Expéditeur (username)
-            String content, // Texte du message
-            boolean mine,   // true si envoyé par l'utilisateur courant
-            String time) {  // Heure au format HH:mm
-    }
+    private static final HistoryCompactor.Policy HISTORY_RETENTION = HistoryCompactor.Policy.fromSystemProperties();
+
+    // Mesures publiées dans Metrics (voir ce registre pour la liste complète)
+    private static final LatencyHistogram MESSAGE_RENDER = Metrics.CLIENT.histogram("message.render");
+    private static final LatencyHistogram CONTACTS_RENDER = Metrics.CLIENT.histogram("contacts.render");
+    private static final LatencyHistogram HISTORY_SAVE = Metrics.CLIENT.histogram("history.save");
+    private static final LatencyHistogram HISTORY_APPEND = Metrics.CLIENT.histogram("history.append");
+    private static final LatencyHistogram HISTORY_COMPACT = Metrics.CLIENT.histogram("history.compact");
+    private static final LongAdder HISTORY_COMPACTED = Metrics.CLIENT.counter("history.compacted");
+    private static final LongAdder HISTORY_DROPPED = Metrics.CLIENT.counter("history.dropped");
+    private static final AtomicLong HISTORY_CONVERSATIONS = Metrics.CLIENT.gauge("history.conversations");
+    private static final AtomicLong HISTORY_BYTES = Metrics.CLIENT.gauge("history.bytes");
+    private static final LatencyHistogram SEARCH_CATCH_UP = Metrics.CLIENT.histogram("search.catchup");
+    private static final LongAdder SEARCH_INDEXED = Metrics.CLIENT.counter("search.indexed");
+    private static final AtomicLong SEARCH_DOCUMENTS = Metrics.CLIENT.gauge("search.documents");
+
+    /** Conversations gardées prêtes à réafficher (-Dpelo.conversationCache). */
+    private static final int CONVERSATION_CACHE_SIZE =
+            Integer.getInteger("pelo.conversationCache", ConversationCache.DEFAULT_CAPACITY);
+
+    /** Nombre de lignes du bord de la fenêtre à partir duquel la page suivante est lue. */
+    private static final int PREFETCH_ROWS = 10;
+
+    /** Nombre max de résultats affichés pour une recherche. */
+    private static final int SEARCH_LIMIT = 50;
+
+    /** Messages relus à la fois pour rattraper l'index de recherche. */
+    private static final int INDEX_CATCH_UP_BATCH = 1_000;
 
     // ═══════════════════════════════════════════════════════
     // INITIALISATION
@@ -178,25 +279,32 @@ public class ChatController {
      * Appelé par AuthController juste après la navigation.
      *
      * Ordre des opérations :
-     *  1. Prépare le dossier d'historique local
-     *  2. Charge les conversations précédentes depuis le disque
-     *  3. Branche le callback de réception de paquets sur ce contrôleur
-     *  4. Demande la liste des utilisateurs au serveur
+     *  1. Lance en arrière-plan l'ouverture de l'historique local (résumés seulement),
+     *     puis celle de l'index de recherche
+     *  2. Branche le callback de réception de paquets sur ce contrôleur
+     *  3. Demande la liste des utilisateurs au serveur
      */
     public void init(String username, SocketService service) {
         this.currentUser = username;
         this.socketService = service;
 
-        // Préparer le dossier de persistance et charger l'historique local
+        // Ouvrir l'historique local hors du thread JavaFX (la liste s'affiche sans l'attendre)
         historyDir = Paths.get(System.getProperty("user.home"), ".pelo_chat", username, "messages");
-        try {
-            Files.createDirectories(historyDir);
-        } catch (IOException ignored) {
-        }
-        loadLocalHistory();
+        loadSummaries();
+        historyIo.execute(this::openSearchIndex);
+        historyIo.execute(this::compactHistory);
+        searchField.textProperty().addListener((obs, old, text) -> filterContacts(text));
+        searchField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                searchField.clear();
+                showContactList();
+            }
+        });
+        setupMessageList();
 
         // Remplace le callback d'AuthController par celui de ChatController
-        socketService.setOnPacketReceived(this::handlePacket);
+        registerPacketHandlers();
+        socketService.setOnPacketsReceived(this::handlePackets);
 
         showLoadingState();
         socketService.requestUsers(currentUser);
@@ -207,6 +315,39 @@ public class ChatController {
         }
     }
 
+    /**
+     * Configure la liste virtualisée des messages : une cellule recyclable par ligne
+     * visible, l'avatar des bulles reçues suivant le contact affiché.
+     */
+    private void setupMessageList() {
+        messageList.setCellFactory(list -> new MessageCell(
+                () -> currentContact != null ? currentContact.initials() : "",
+                () -> currentContact != null ? currentContact.avatarStyle() : AVATAR_STYLES[0]));
+        Label empty = new Label("Commencez la conversation !");
+        empty.getStyleClass().add("pelo-meta");
+        messageList.setPlaceholder(empty);
+
+        // Skin créé tout de suite pour accéder au VirtualFlow (lignes visibles, défilement)
+        messageList.setSkin(new ListViewSkin<>(messageList));
+        messageFlow = (VirtualFlow<?>) messageList.lookup(".virtual-flow");
+        if (messageFlow != null)
+            messageFlow.positionProperty().addListener((obs, old, pos) -> loadPagesNearEdges());
+    }
+
+    /** Lit la page voisine quand les lignes visibles approchent d'un bord de la fenêtre. */
+    private void loadPagesNearEdges() {
+        PagedConversation conv = shownConversation;
+        if (conv == null || messageFlow == null)
+            return;
+        IndexedCell<?> top = messageFlow.getFirstVisibleCell();
+        IndexedCell<?> bottom = messageFlow.getLastVisibleCell();
+        if (top != null && top.getIndex() < PREFETCH_ROWS && !conv.atHead()) {
+            conv.loadOlder();
+        } else if (bottom != null && bottom.getIndex() >= conv.items().size() - PREFETCH_ROWS) {
+            conv.loadNewer();
+        }
+    }
+
     private void showLoadingState() {
         chatListContainer.getChildren().clear();
         Label loading = new Label("Chargement des contacts…");
@@ -220,65 +361,250 @@ public class ChatController {
     // ═══════════════════════════════════════════════════════
 
     /**
-     * Charge toutes les conversations sauvegardées depuis
-     * ~/.pelo_chat/{user}/messages/.
+     * Ouvre ~/.pelo_chat/{user}/messages/ (migration comprise) et n'en lit qu'un résumé
+     * par conversation. Les conversations complètes sont lues à la sélection
+     * (voir conversation).
      */
-    private void loadLocalHistory() {
-        if (historyDir == null || !Files.exists(historyDir))
-            return;
-        Type listType = new TypeToken<List<ChatMessage>>() {
-        }.getType();
-        try (var stream = Files.list(historyDir)) {
-            stream.filter(p -> p.toString().endsWith(".json"))
-                    .forEach(p -> {
-                        String peer = p.getFileName().toString().replace(".json", "");
-                        try {
-                            String json = Files.readString(p);
-                            List<ChatMessage> msgs = new Gson().fromJson(json, listType);
-                            if (msgs != null && !msgs.isEmpty()) {
-                                history.put(peer, new ArrayList<>(msgs));
-                            }
-                        } catch (IOException e) {
-                            System.err.println("Lecture historique échouée pour " + peer + " : " + e.getMessage());
-                        }
-                    });
-        } catch (IOException e) {
-            System.err.println("Impossible de lister le dossier historique : " + e.getMessage());
+    private void loadSummaries() {
+        CompletableFuture.supplyAsync(() -> {
+            List<ConversationSummary> loaded = new ArrayList<>();
+            try {
+                historyStore = new HistoryStore(historyDir);
+                for (String peer : historyStore.peers()) {
+                    try {
+                        ConversationSummary summary = historyStore.summary(peer);
+                        if (summary.last() != null)
+                            loaded.add(summary);
+                    } catch (IOException e) {
+                        System.err.println("Lecture historique échouée pour " + peer + " : " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Historique local indisponible : " + e.getMessage());
+            }
+            return loaded;
+        }, historyIo).thenAcceptAsync(this::applySummaries, Platform::runLater);
+    }
+
+    /** Intègre les résumés lus sur disque (thread JavaFX) et met à jour les aperçus. */
+    private void applySummaries(List<ConversationSummary> loaded) {
+        for (ConversationSummary disk : loaded) {
+            // Messages reçus pendant le chargement : ajoutés après ceux du disque
+            ConversationSummary live = summaries.get(disk.peer());
+            summaries.put(disk.peer(), live == null
+                    ? disk
+                    : new ConversationSummary(disk.peer(), disk.count() + live.count(), live.last()));
+            HBox item = itemByPeer.get(disk.peer());
+            if (item != null && live == null)
+                updatePreview(item, disk.last().content(), disk.last().time());
         }
     }
 
-    /** Sauvegarde la conversation avec un pair dans un fichier JSON. */
-    private void saveConversation(String peer) {
-        if (historyDir == null)
-            return;
-        List<ChatMessage> msgs = history.get(peer);
-        if (msgs == null || msgs.isEmpty())
+    /**
+     * Conversation avec {@code peer}, ouverte au premier accès sur sa dernière page (lue
+     * en arrière-plan) ; les pages plus anciennes sont lues en remontant la liste.
+     */
+    private PagedConversation conversation(String peer) {
+        PagedConversation conv = history.get(peer);
+        if (conv == null) {
+            // Le journal n'est lu que sur historyIo, où historyStore est ouvert
+            PagedConversation.Source source = new PagedConversation.Source() {
+                @Override
+                public int count() throws IOException {
+                    return historyStore != null ? historyStore.count(peer) : 0;
+                }
+
+                @Override
+                public int first() throws IOException {
+                    return historyStore != null ? historyStore.first(peer) : 0;
+                }
+
+                @Override
+                public List<ChatMessage> read(int from, int to) throws IOException {
+                    return historyStore != null ? historyStore.read(peer, from, to) : List.of();
+                }
+            };
+            conv = new PagedConversation(peer, source, historyIo, Platform::runLater,
+                    HISTORY_PAGE_SIZE, HISTORY_MAX_PAGES);
+            conv.setListener(pageListener);
+            history.put(conv);
+            conv.openLatest();
+        }
+        return conv;
+    }
+
+    /** Garde le défilement en place quand la fenêtre de la conversation affichée glisse. */
+    private final PagedConversation.Listener pageListener = new PagedConversation.Listener() {
+        @Override
+        public void latestLoaded(PagedConversation conv) {
+            if (conv == shownConversation)
+                scrollToEnd();
+        }
+
+        @Override
+        public void headShifted(PagedConversation conv, int delta) {
+            if (conv != shownConversation || messageFlow == null)
+                return;
+            // Les cellules portent encore les index d'avant le changement (mise en page à venir)
+            IndexedCell<?> top = messageFlow.getFirstVisibleCell();
+            if (top == null)
+                return;
+            double offset = top.getLayoutY();
+            messageFlow.scrollToTop(Math.max(0, top.getIndex() + delta));
+            messageFlow.scrollPixels(-offset);
+        }
+    };
+
+    /** Dernier message connu avec {@code peer} (disque ou session), null si aucun. */
+    private ChatMessage lastMessage(String peer) {
+        ConversationSummary summary = summaries.get(peer);
+        return summary != null ? summary.last() : null;
+    }
+
+    /** Ajoute un message au journal du pair : seul le nouvel enregistrement est écrit. */
+    private void appendToHistory(String peer, ChatMessage msg) {
+        long requested = System.nanoTime();
+        historyIo.execute(() -> {
+            if (historyStore == null)
+                return;
+            try {
+                long t0 = System.nanoTime();
+                int rank = historyStore.append(peer, msg);
+                long written = System.nanoTime();
+                HISTORY_APPEND.record(written - t0);
+                HISTORY_SAVE.record(written - requested);
+                if (searchIndex != null)
+                    searchIndex.add(peer, rank, msg.content());
+            } catch (IOException e) {
+                System.err.println("Sauvegarde échouée pour " + peer + " : " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Applique la rétention et scelle les journaux qui ont tourné (voir HistoryCompactor).
+     * Le plan ne lit que les en-têtes ; chaque pair est ensuite compacté dans sa propre
+     * tâche historyIo, si bien que les pages demandées entre-temps ne l'attendent pas
+     * toutes. Les rangs ne changent pas : pages affichées et index de recherche restent
+     * valides. Durée, messages supprimés et occupation disque sont publiés dans Metrics.
+     */
+    private void compactHistory() {
+        if (historyStore == null)
             return;
-        Path file = historyDir.resolve(peer + ".json");
+        HistoryCompactor compactor = new HistoryCompactor(historyStore, HISTORY_RETENTION);
+        Map<String, Integer> plan;
         try {
-            Files.writeString(file, new Gson().toJson(msgs));
+            plan = compactor.plan(System.currentTimeMillis());
         } catch (IOException e) {
-            System.err.println("Sauvegarde échouée pour " + peer + " : " + e.getMessage());
+            System.err.println("Compactage de l'historique impossible : " + e.getMessage());
+            return;
+        }
+        long t0 = System.nanoTime();
+        for (Map.Entry<String, Integer> entry : plan.entrySet()) {
+            historyIo.execute(() -> {
+                if (historyStore == null)
+                    return;
+                try {
+                    historyStore.compact(entry.getKey(), entry.getValue());
+                } catch (IOException e) {
+                    System.err.println("Compactage échoué pour " + entry.getKey() + " : " + e.getMessage());
+                }
+            });
         }
+        historyIo.execute(() -> {
+            if (historyStore == null)
+                return;
+            HISTORY_COMPACT.record(System.nanoTime() - t0);
+            HISTORY_COMPACTED.add(plan.size());
+            HISTORY_DROPPED.add(plan.values().stream().mapToInt(Integer::intValue).sum());
+            try {
+                List<HistoryStore.Usage> usage = compactor.usage();
+                HISTORY_CONVERSATIONS.set(usage.size());
+                HISTORY_BYTES.set(HistoryCompactor.totalBytes(usage));
+            } catch (IOException e) {
+                System.err.println("Occupation de l'historique inconnue : " + e.getMessage());
+            }
+        });
+    }
+
+    /** Ferme les journaux d'historique après les écritures en attente (forcées sur disque). */
+    private void closeHistory() {
+        historyIo.execute(() -> {
+            try {
+                if (searchIndex != null)
+                    searchIndex.close();
+            } catch (IOException e) {
+                System.err.println("Fermeture de l'index de recherche échouée : " + e.getMessage());
+            }
+            searchIndex = null;
+            if (historyStore == null)
+                return;
+            try {
+                historyStore.close();
+            } catch (IOException e) {
+                System.err.println("Fermeture de l'historique échouée : " + e.getMessage());
+            }
+            historyStore = null;
+        });
+        historyThread.shutdown();
     }
 
     // ═══════════════════════════════════════════════════════
     // LISTE DES CONVERSATIONS
     // ═══════════════════════════════════════════════════════
 
-    private void renderContactList() {
-        chatListContainer.getChildren().clear();
-        itemByPeer.clear();
-        statusDotByPeer.clear();
-
-        for (Contact c : contacts) {
-            List<ChatMessage> msgs = history.getOrDefault(c.username(), List.of());
-            String preview = msgs.isEmpty() ? "" : msgs.get(msgs.size() - 1).content();
-            String time = msgs.isEmpty() ? "" : msgs.get(msgs.size() - 1).time();
+    /**
+     * Aligne les lignes affichées sur {@code contacts}, par clé (username) : les lignes
+     * existantes sont conservées (même nœud, donc défilement et sélection intacts) et
+     * seulement mises à jour, les nouvelles sont créées, les lignes disparues retirées
+     * et les lignes déplacées réinsérées à leur place.
+     */
+    private void reconcileContactList() {
+        ObservableList<Node> rows = chatListContainer.getChildren();
+
+        // 1. Retirer les lignes des contacts disparus (et le message de chargement)
+        itemByPeer.keySet().removeIf(peer -> !contacts.contains(peer));
+        statusDotByPeer.keySet().removeIf(peer -> !contacts.contains(peer));
+        List<Node> stale = new ArrayList<>();
+        for (Node n : rows) {
+            if (!(n.getUserData() instanceof String peer) || itemByPeer.get(peer) != n)
+                stale.add(n);
+        }
+        if (!stale.isEmpty())
+            rows.removeAll(stale);
+
+        // 2. Parcourir dans l'ordre : créer, mettre à jour ou déplacer
+        for (int i = 0; i < contacts.size(); i++) {
+            Contact c = contacts.get(i);
+            HBox item = itemByPeer.get(c.username());
+            if (item == null) {
+                ChatMessage last = lastMessage(c.username());
+                item = buildChatItem(c, last != null ? last.content() : "", last != null ? last.time() : "");
+                itemByPeer.put(c.username(), item);
+            } else {
+                updateChatItem(item, c);
+            }
+            if (i >= rows.size() || rows.get(i) != item) {
+                rows.remove(item); // sans effet pour une ligne neuve
+                rows.add(i, item);
+            }
+        }
+        restoreActiveStyle();
+    }
 
-            HBox item = buildChatItem(c, preview, time);
-            itemByPeer.put(c.username(), item);
-            chatListContainer.getChildren().add(item);
+    /** Met à jour une ligne existante (nom, statut) sans recréer ses nœuds. */
+    private void updateChatItem(HBox item, Contact c) {
+        Circle dot = statusDotByPeer.get(c.username());
+        if (dot != null)
+            dot.setFill(c.isOnline() ? Color.web("#2ecc71") : Color.web("#95a5a6"));
+        if (item.getChildren().size() >= 2
+                && item.getChildren().get(1) instanceof VBox info
+                && !info.getChildren().isEmpty()
+                && info.getChildren().get(0) instanceof HBox nameRow
+                && !nameRow.getChildren().isEmpty()
+                && nameRow.getChildren().get(0) instanceof Label nameLabel
+                && !nameLabel.getText().equals(c.displayName())) {
+            nameLabel.setText(c.displayName());
         }
     }
 
@@ -317,6 +643,7 @@ public class ChatController {
         HBox item = new HBox(12, avatar, info);
         item.setAlignment(Pos.CENTER_LEFT);
         item.getStyleClass().add("pelo-chat-item");
+        item.setUserData(c.username()); // clé de réconciliation
         item.setOnMouseClicked(e -> selectConversation(c, item));
 
         return item;
@@ -327,14 +654,10 @@ public class ChatController {
     // ═══════════════════════════════════════════════════════
 
     private void selectConversation(Contact contact, HBox item) {
-        // Toujours récupérer l'objet Contact le plus récent du cache local
-        // pour éviter d'utiliser une référence "stale" (ex: Capturée alors qu'il était
-        // OFFLINE)
-        final String searchName = contact.username();
-        Contact freshContact = contacts.stream()
-                .filter(c -> c.username().equalsIgnoreCase(searchName))
-                .findFirst()
-                .orElse(contact);
+        // L'annuaire tient une seule instance par utilisateur (statut modifié en place) ;
+        // on repasse par lui au cas où la liste aurait été remplacée depuis
+        Contact registered = contacts.get(contact.username());
+        Contact freshContact = registered != null ? registered : contact;
 
         if (activeItem != null)
             activeItem.getStyleClass().remove("active");
@@ -361,77 +684,82 @@ public class ChatController {
     // ZONE DE MESSAGES
     // ═══════════════════════════════════════════════════════
 
+    /**
+     * Affiche la conversation du contact courant. La ListView observe directement
+     * la liste d'historique : aucun nœud n'est reconstruit, seules les cellules
+     * visibles sont (re)liées à leurs messages. Une conversation encore en cache
+     * reprend sa fenêtre et sa position de défilement sans lecture disque.
+     */
     private void refreshMessages() {
-        messageContainer.getChildren().clear();
-
-        List<ChatMessage> msgs = history.getOrDefault(
-                currentContact.username(), List.of());
-
-        if (msgs.isEmpty()) {
-            Label empty = new Label("Commencez la conversation !");
-            empty.getStyleClass().add("pelo-meta");
-            HBox center = new HBox(empty);
-            center.setAlignment(Pos.CENTER);
-            center.setStyle("-fx-padding: 24;");
-            messageContainer.getChildren().add(center);
-            return;
-        }
-
-        for (ChatMessage msg : msgs) {
-            messageContainer.getChildren().add(
-                    msg.mine() ? buildSentBubble(msg) : buildReceivedBubble(msg));
+        long t0 = System.nanoTime();
+        rememberScroll();
+        String peer = currentContact.username();
+        ConversationCache.Scroll scroll = history.scroll(peer);
+        shownConversation = conversation(peer);
+        boolean cached = shownConversation.loaded();
+        messageList.setItems(shownConversation.items());
+        // Les cellules visibles doivent reprendre l'avatar du nouveau contact
+        messageList.refresh();
+        if (cached && scroll != null && !scroll.atEnd() && messageFlow != null) {
+            messageFlow.scrollToTop(Math.min(scroll.index(), shownConversation.items().size() - 1));
+            messageFlow.scrollPixels(-scroll.offset());
+        } else {
+            scrollToLatest();
         }
+        measureSwitch(shownConversation, t0, cached);
     }
 
-    private Node buildSentBubble(ChatMessage msg) {
-        Label text = new Label(msg.content());
-        text.setWrapText(true);
-        text.setStyle("-fx-text-fill: white;");
-        text.getStyleClass().add("pelo-body");
-
-        VBox bubble = new VBox(text);
-        bubble.getStyleClass().addAll("pelo-bubble", "pelo-bubble-sent");
-
-        Label timeLabel = new Label(msg.time());
-        timeLabel.getStyleClass().add("pelo-meta");
-
-        Text checks = new Text("✓✓");
-        checks.setFill(Color.web("#2ecc71"));
-
-        HBox timeRow = new HBox(5, timeLabel, checks);
-        timeRow.setAlignment(Pos.CENTER_RIGHT);
-
-        VBox content = new VBox(5, bubble, timeRow);
-        content.setAlignment(Pos.TOP_RIGHT);
-
-        HBox wrapper = new HBox(content);
-        wrapper.setAlignment(Pos.TOP_RIGHT);
-        return wrapper;
+    /** Retient la position de défilement de la conversation que l'on quitte. */
+    private void rememberScroll() {
+        PagedConversation conv = shownConversation;
+        if (conv == null || messageFlow == null || !conv.loaded())
+            return;
+        IndexedCell<?> top = messageFlow.getFirstVisibleCell();
+        IndexedCell<?> bottom = messageFlow.getLastVisibleCell();
+        if (top == null || bottom == null)
+            return;
+        boolean atEnd = conv.atTail() && bottom.getIndex() >= conv.items().size() - 1;
+        history.saveScroll(conv.peer(), new ConversationCache.Scroll(top.getIndex(), top.getLayoutY(), atEnd));
     }
 
-    private Node buildReceivedBubble(ChatMessage msg) {
-        StackPane avatar = makeAvatar(
-                currentContact.initials(), "pelo-avatar-sm",
-                currentContact.avatarStyle(), false);
-
-        Label senderName = new Label(msg.from());
-        senderName.getStyleClass().add("pelo-meta");
-
-        Label text = new Label(msg.content());
-        text.setWrapText(true);
-        text.getStyleClass().add("pelo-body-navy");
-
-        VBox bubble = new VBox(text);
-        bubble.getStyleClass().addAll("pelo-bubble", "pelo-bubble-received");
-
-        Label timeLabel = new Label(msg.time());
-        timeLabel.getStyleClass().add("pelo-meta");
+    /**
+     * Mesure le changement de conversation jusqu'à la première mise en page où ses
+     * messages sont affichés (page lue sur le disque comprise si elle n'était pas en cache).
+     */
+    private void measureSwitch(PagedConversation conv, long t0, boolean cached) {
+        Scene scene = messageList.getScene();
+        if (scene == null)
+            return;
+        Runnable[] probe = new Runnable[1];
+        boolean[] done = {false};
+        probe[0] = () -> {
+            if (done[0] || (conv == shownConversation && !conv.loaded()))
+                return; // page pas encore reçue : mise en page suivante
+            done[0] = true;
+            if (conv == shownConversation)
+                history.recordSwitch(System.nanoTime() - t0, cached);
+            // Retrait différé : la liste des écouteurs est en cours de parcours
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(probe[0]));
+        };
+        scene.addPostLayoutPulseListener(probe[0]);
+    }
 
-        VBox content = new VBox(5, senderName, bubble, timeLabel);
+    /**
+     * Fait défiler la liste jusqu'au message le plus récent, en rechargeant la dernière
+     * page si l'utilisateur était remonté au-delà de la fenêtre.
+     */
+    private void scrollToLatest() {
+        if (shownConversation != null && !shownConversation.atTail()) {
+            shownConversation.jumpToLatest(); // défilement à la réception de la page
+            return;
+        }
+        scrollToEnd();
+    }
 
-        HBox wrapper = new HBox(12, avatar, content);
-        StackPane.setAlignment(avatar, Pos.TOP_CENTER);
-        return wrapper;
+    private void scrollToEnd() {
+        int size = messageList.getItems().size();
+        if (size > 0)
+            messageList.scrollTo(size - 1);
     }
 
     // ═══════════════════════════════════════════════════════
@@ -447,12 +775,16 @@ public class ChatController {
         if (content.isEmpty())
             return;
 
-        socketService.send(new Packet(
-                "SEND_MESSAGE", currentUser, currentContact.username(), content));
+        String peer = currentContact.username();
+        socketService.send(new Packet("SEND_MESSAGE", currentUser, peer, content))
+                .exceptionally(e -> {
+                    System.err.println("Envoi à " + peer + " échoué : " + e.getMessage());
+                    return null;
+                });
 
         ChatMessage msg = new ChatMessage(currentUser, content, true, now());
-        recordMessage(currentContact.username(), msg);
-        messageContainer.getChildren().add(buildSentBubble(msg));
+        recordMessage(peer, msg);
+        scrollToLatest();
 
         messageField.clear();
     }
@@ -461,88 +793,240 @@ public class ChatController {
     // RÉCEPTION D'UN MESSAGE
     // ═══════════════════════════════════════════════════════
 
-    private void handlePacket(Packet packet) {
-        if (packet == null || packet.getAction() == null)
+    /**
+     * Applique un lot de paquets reçus (déjà sur le thread JavaFX, voir SocketService).
+     * Chaque paquet est traité en temps constant (annuaire indexé) ; le défilement est
+     * fait une seule fois en fin de lot, quelle que soit la taille de la rafale.
+     */
+    private void handlePackets(List<Packet> packets) {
+        scrollPending = false;
+
+        for (Packet packet : packets) {
+            dispatcher.dispatch(packet);
+            if (packet.getReceivedNanos() != 0 && packet.actionType() == Action.MESSAGE_RECEIVED)
+                awaitRender(packet.getReceivedNanos());
+        }
+
+        if (scrollPending) {
+            scrollToLatest();
+        }
+        if (contactIndexDirty) {
+            contactIndexDirty = false;
+            rebuildContactIndex();
+        }
+        measureRender();
+    }
+
+    private void awaitRender(long receivedNanos) {
+        if (awaitingCount == awaitingRender.length)
+            awaitingRender = Arrays.copyOf(awaitingRender, awaitingCount * 2);
+        awaitingRender[awaitingCount++] = receivedNanos;
+    }
+
+    /**
+     * Mesure, pour chaque message reçu depuis la dernière image, le délai jusqu'à la
+     * prochaine mise en page (qui affiche le message ou l'aperçu de sa conversation).
+     */
+    private void measureRender() {
+        if (awaitingCount == 0 || renderProbe != null)
             return;
+        Scene scene = messageList.getScene();
+        if (scene == null) {
+            awaitingCount = 0;
+            return;
+        }
+        Runnable[] probe = new Runnable[1];
+        probe[0] = () -> {
+            if (renderProbe != probe[0])
+                return; // déjà mesuré, retrait en attente
+            renderProbe = null;
+            long now = System.nanoTime();
+            for (int i = 0; i < awaitingCount; i++)
+                MESSAGE_RENDER.record(now - awaitingRender[i]);
+            awaitingCount = 0;
+            // Retrait différé : la liste des écouteurs est en cours de parcours
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(probe[0]));
+        };
+        renderProbe = probe[0];
+        scene.addPostLayoutPulseListener(probe[0]);
+    }
 
-        switch (packet.getAction()) {
+    /**
+     * Abonne le contrôleur aux actions qu'il traite. Les payloads sont déjà décodés sur
+     * le thread réseau (PacketDecoder) ; les autres actions sont comptées comme non
+     * traitées par le dispatcher.
+     */
+    private void registerPacketHandlers() {
+        dispatcher
+                .on(Action.USERS_LIST, User[].class, this::onUsersList)
+                .on(Action.MESSAGE_RECEIVED, ChatMessage.class, this::onMessageReceived)
+                // Regroupés par contact, appliqués à la fin de la fenêtre (PresenceAggregator)
+                .on(Action.STATUS_UPDATE, StatusEvent.class, presence::offer)
+                .on(Action.RECONNECTING, packet -> onReconnecting())
+                .on(Action.RECONNECTED, packet -> onReconnected())
+                .on(Action.ERROR, packet -> System.err.println("Erreur serveur : " + packet.getContent()));
+    }
 
-            case "USERS_LIST" -> Platform.runLater(() -> {
-                User[] users = new Gson().fromJson(packet.getContent(), User[].class);
-                populateContacts(users);
-            });
+    private void onUsersList(User[] users) {
+        long t0 = System.nanoTime();
+        // La liste reflète déjà les changements de statut arrivés avant elle
+        presence.discardPending();
+        if (mergeNextUsersList) {
+            mergeNextUsersList = false;
+            mergeContacts(users);
+        } else {
+            populateContacts(users);
+        }
+        afterNextLayout(() -> CONTACTS_RENDER.record(System.nanoTime() - t0));
+    }
 
-            case "MESSAGE_RECEIVED" -> Platform.runLater(() -> {
-                String from = packet.getFrom();
-                String content = packet.getContent();
-
-                // Ajouter l'expéditeur si inconnu (forcément en ligne s'il envoie un msg)
-                if (contacts.stream().noneMatch(c -> c.username().equalsIgnoreCase(from))) {
-                    contacts.add(new Contact(
-                            from, from, initials(from),
-                            AVATAR_STYLES[contacts.size() % AVATAR_STYLES.length],
-                            "", false, "ONLINE"));
-                    renderContactList();
-                    restoreActiveStyle();
-                }
+    /** Exécute {@code action} une fois, après la prochaine mise en page de la scène. */
+    private void afterNextLayout(Runnable action) {
+        Scene scene = messageList.getScene();
+        if (scene == null)
+            return;
+        Runnable[] probe = new Runnable[1];
+        boolean[] done = {false};
+        probe[0] = () -> {
+            if (done[0])
+                return;
+            done[0] = true;
+            action.run();
+            // Retrait différé : la liste des écouteurs est en cours de parcours
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(probe[0]));
+        };
+        scene.addPostLayoutPulseListener(probe[0]);
+    }
 
-                ChatMessage msg = new ChatMessage(from, content, false, now());
-                recordMessage(from, msg);
+    private void onMessageReceived(ChatMessage msg) {
+        if (msg.from() == null)
+            return;
+        // Ajouter l'expéditeur si inconnu (forcément en ligne s'il envoie un msg)
+        Contact sender = contacts.get(msg.from());
+        if (sender == null) {
+            sender = addContact(new Contact(
+                    msg.from(), msg.from(),
+                    AVATAR_STYLES[contacts.size() % AVATAR_STYLES.length],
+                    "", false, "ONLINE"));
+        }
 
-                if (currentContact != null && from.equalsIgnoreCase(currentContact.username())) {
-                    messageContainer.getChildren().add(buildReceivedBubble(msg));
-                }
-            });
+        // Historique rangé sous le username de l'annuaire, quelle que soit la casse reçue
+        recordMessage(sender.username(), msg);
 
-            case "STATUS_UPDATE" -> Platform.runLater(() -> {
-                Type mapType = new TypeToken<Map<String, String>>() {
-                }.getType();
-                Map<String, String> data = new Gson().fromJson(packet.getContent(), mapType);
-                if (data != null && data.containsKey("username") && data.containsKey("status")) {
-                    updateContactStatus(data.get("username"), data.get("status"));
-                }
-            });
+        if (sender == currentContact) {
+            scrollPending = true;
+        }
+    }
+
+    // Coupure réseau : SocketService retente seul, on le signale simplement
+    private void onReconnecting() {
+        if (userStatusDot != null)
+            userStatusDot.setFill(Color.web("#F39C12"));
+    }
+
+    private void onReconnected() {
+        if (userStatusDot != null)
+            userStatusDot.setFill(Color.web("#2ecc71"));
+        // La liste qui suit ne porte que sur la coupure : la conversation ouverte
+        // et les contacts existants sont conservés
+        mergeNextUsersList = true;
+    }
 
-            case "ERROR" -> Platform.runLater(() -> System.err.println("Erreur serveur : " + packet.getContent()));
+    /**
+     * Intègre la liste reçue après une reconnexion : met à jour les statuts, ajoute les
+     * nouveaux utilisateurs, ne retire personne et ne change pas la sélection.
+     */
+    private void mergeContacts(User[] users) {
+        for (User u : users) {
+            if (u.getUsername() == null)
+                continue;
+            String status = u.getStatus() != null ? u.getStatus() : "OFFLINE";
+            if (contacts.contains(u.getUsername())) {
+                updateContactStatus(u.getUsername(), status);
+            } else {
+                addContact(new Contact(
+                        u.getUsername(),
+                        displayName(u),
+                        AVATAR_STYLES[contacts.size() % AVATAR_STYLES.length],
+                        "",
+                        false,
+                        status));
+            }
         }
     }
 
-    /** Construit la liste de contacts à partir de la réponse serveur. */
+    /** Ajoute un contact en fin d'annuaire et sa ligne à la même position. */
+    private Contact addContact(Contact contact) {
+        Contact c = contacts.add(contact);
+        if (c != contact || itemByPeer.containsKey(c.username()))
+            return c;
+        contactIndexDirty = true;
+        ChatMessage last = lastMessage(c.username());
+        HBox item = buildChatItem(c, last != null ? last.content() : "", last != null ? last.time() : "");
+        itemByPeer.put(c.username(), item);
+        ObservableList<Node> rows = chatListContainer.getChildren();
+        if (!rows.isEmpty() && !(rows.get(0).getUserData() instanceof String))
+            rows.clear(); // encore le message de chargement
+        rows.add(Math.min(c.index(), rows.size()), item);
+        return c;
+    }
+
+    private static String displayName(User u) {
+        return (u.getFullName() != null && !u.getFullName().isBlank())
+                ? u.getFullName()
+                : u.getUsername();
+    }
+
+    /**
+     * Remplace la liste de contacts par la réponse serveur. Les lignes des contacts déjà
+     * affichés sont réutilisées (voir reconcileContactList) et gardent leur avatar.
+     */
     private void populateContacts(User[] users) {
-        contacts.clear();
+        // Les contacts déjà connus sont mis à jour en place (même instance, même avatar)
+        List<Contact> list = new ArrayList<>(users.length);
         for (int i = 0; i < users.length; i++) {
             User u = users[i];
-            String displayName = (u.getFullName() != null && !u.getFullName().isBlank())
-                    ? u.getFullName()
-                    : u.getUsername();
+            if (u.getUsername() == null)
+                continue;
             String status = u.getStatus() != null ? u.getStatus() : "OFFLINE";
-            contacts.add(new Contact(
-                    u.getUsername(),
-                    displayName,
-                    initials(displayName),
-                    AVATAR_STYLES[i % AVATAR_STYLES.length],
-                    "", // le serveur n'envoie pas de rôle pour l'instant
-                    false,
-                    status));
-        }
-        renderContactList();
-
-        // Restaurer les previews des messages déjà reçus (ex. messages hors-ligne)
-        for (Contact c : contacts) {
-            List<ChatMessage> msgs = history.get(c.username());
-            if (msgs != null && !msgs.isEmpty()) {
-                ChatMessage last = msgs.get(msgs.size() - 1);
-                HBox item = itemByPeer.get(c.username());
-                if (item != null)
-                    updatePreview(item, last.content(), last.time());
+            Contact c = contacts.get(u.getUsername());
+            if (c != null) {
+                c.setDisplayName(displayName(u));
+                c.setStatus(status);
+            } else {
+                c = new Contact(
+                        u.getUsername(),
+                        displayName(u),
+                        AVATAR_STYLES[i % AVATAR_STYLES.length],
+                        "", // le serveur n'envoie pas de rôle pour l'instant
+                        false,
+                        status);
+            }
+            list.add(c);
+        }
+        contacts.replaceAll(list);
+        contactIndexDirty = true;
+        // Les lignes neuves reçoivent l'aperçu de leur historique (messages hors-ligne),
+        // les lignes existantes ont déjà le leur
+        reconcileContactList();
+
+        // Conserver la conversation ouverte si le contact existe toujours
+        if (currentContact != null) {
+            Contact still = contacts.get(currentContact.username());
+            if (still != null) {
+                selectConversation(still, itemByPeer.get(still.username()));
+                return;
             }
         }
 
         // Sélectionner en priorité le contact qui a des messages en attente
-        Contact firstWithMessages = contacts.stream()
-                .filter(c -> history.containsKey(c.username()) && !history.get(c.username()).isEmpty())
-                .findFirst()
-                .orElse(contacts.isEmpty() ? null : contacts.get(0));
+        Contact firstWithMessages = contacts.isEmpty() ? null : contacts.get(0);
+        for (Contact c : contacts) {
+            if (lastMessage(c.username()) != null) {
+                firstWithMessages = c;
+                break;
+            }
+        }
 
         if (firstWithMessages != null) {
             selectConversation(firstWithMessages, itemByPeer.get(firstWithMessages.username()));
@@ -552,40 +1036,28 @@ public class ChatController {
     /**
      * Met à jour le statut d'un contact en temps réel sans reconstruire toute la
      * liste.
-     * Appelée sur réception d'un paquet USER_STATUS_CHANGED.
+     * Appelée pour chaque statut net d'un lot STATUS_UPDATE (voir PresenceAggregator).
+     *
+     * @return true si le statut du contact a changé
      */
-    private void updateContactStatus(String username, String newStatus) {
-        contacts.replaceAll(c -> c.username().equalsIgnoreCase(username)
-                ? new Contact(c.username(), c.displayName(), c.initials(),
-                        c.avatarStyle(), c.role(), c.group(), newStatus)
-                : c);
+    private boolean updateContactStatus(String username, String newStatus) {
+        // Statut changé en place : currentContact et la ligne voient la même instance
+        Contact c = contacts.updateStatus(username, newStatus);
+        if (c == null)
+            return false; // contact inconnu ou statut inchangé
 
         // Mettre à jour le point coloré dans la liste
-        Circle dot = statusDotByPeer.get(username);
-        if (dot == null) {
-            // Tentative de récupération insensible à la casse
-            dot = statusDotByPeer.entrySet().stream()
-                    .filter(e -> e.getKey().equalsIgnoreCase(username))
-                    .map(Map.Entry::getValue)
-                    .findFirst().orElse(null);
-        }
-
+        Circle dot = statusDotByPeer.get(c.username());
         if (dot != null) {
-            boolean online = "ONLINE".equalsIgnoreCase(newStatus);
-            dot.setFill(online ? Color.web("#2ecc71") : Color.web("#95a5a6"));
+            dot.setFill(c.isOnline() ? Color.web("#2ecc71") : Color.web("#95a5a6"));
         }
 
         // Mettre à jour le header si ce contact est sélectionné
-        if (currentContact != null && currentContact.username().equalsIgnoreCase(username)) {
-            // Recréer un objet Contact local pour forcer la mise à jour UI sans dépendre du
-            // stream
-            currentContact = new Contact(currentContact.username(), currentContact.displayName(),
-                    currentContact.initials(), currentContact.avatarStyle(), currentContact.role(),
-                    currentContact.group(), newStatus);
-
-            updateHeaderStatus(currentContact);
-            updateRightPanelStatus(currentContact);
+        if (c == currentContact) {
+            updateHeaderStatus(c);
+            updateRightPanelStatus(c);
         }
+        return true;
     }
 
     /** Affiche le bon libellé et la bonne couleur de statut dans le header. */
@@ -640,7 +1112,7 @@ public class ChatController {
     private void restoreActiveStyle() {
         if (currentContact != null) {
             activeItem = itemByPeer.get(currentContact.username());
-            if (activeItem != null)
+            if (activeItem != null && !activeItem.getStyleClass().contains("active"))
                 activeItem.getStyleClass().add("active");
         }
     }
@@ -742,6 +1214,212 @@ public class ChatController {
         return popup;
     }
 
+    // ═══════════════════════════════════════════════════════
+    // FILTRAGE DES CONTACTS
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Saisie dans le champ de recherche : filtre la liste par préfixe (username, nom
+     * affiché, initiales). La requête est résolue sur pelo-filter ; seules les lignes
+     * dont la visibilité change sont touchées, la liste n'est pas reconstruite.
+     */
+    private void filterContacts(String text) {
+        int gen = filterGeneration.incrementAndGet();
+        if (searchResultsContainer.isVisible())
+            showContactList(); // la frappe reprend la main sur les résultats de recherche
+        String query = text == null ? "" : text.trim();
+        if (query.isEmpty()) {
+            applyContactFilter(null);
+            return;
+        }
+        contactFilterWorker.execute(() -> {
+            if (gen != filterGeneration.get())
+                return; // déjà remplacée par une frappe plus récente
+            Set<String> matches = contactIndex.match(query, () -> gen != filterGeneration.get());
+            if (matches == null)
+                return;
+            Platform.runLater(() -> {
+                if (gen == filterGeneration.get())
+                    applyContactFilter(matches);
+            });
+        });
+    }
+
+    /** Affiche les lignes des contacts trouvés, masque les autres (null : tout afficher). */
+    private void applyContactFilter(Set<String> matches) {
+        for (Map.Entry<String, HBox> e : itemByPeer.entrySet()) {
+            boolean show = matches == null || matches.contains(e.getKey());
+            HBox row = e.getValue();
+            if (row.isVisible() != show) {
+                row.setVisible(show);
+                row.setManaged(show);
+            }
+        }
+    }
+
+    /**
+     * Reconstruit l'index par préfixe (sur pelo-filter) à partir d'une copie des contacts,
+     * puis réapplique le filtre en cours aux lignes éventuellement ajoutées.
+     */
+    private void rebuildContactIndex() {
+        List<ContactPrefixIndex.Entry> entries = new ArrayList<>(contacts.size());
+        for (Contact c : contacts)
+            entries.add(new ContactPrefixIndex.Entry(c.username(), c.displayName(), c.initials()));
+        contactFilterWorker.execute(() -> {
+            contactIndex = ContactPrefixIndex.build(entries);
+            Platform.runLater(() -> {
+                if (!searchField.getText().isBlank())
+                    filterContacts(searchField.getText());
+            });
+        });
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // RECHERCHE DANS L'HISTORIQUE
+    // ═══════════════════════════════════════════════════════
+
+    /** Message trouvé, prêt à afficher : positions des termes à surligner comprises. */
+    private record SearchResult(String peer, ChatMessage message, List<int[]> highlights) {
+    }
+
+    /**
+     * Ouvre l'index de recherche (search.idx, à côté des journaux) et y ajoute les
+     * messages qui lui manquent : tout l'historique au premier lancement, seulement les
+     * derniers messages ensuite (durée et nombre publiés dans Metrics). Thread historyIo.
+     */
+    private void openSearchIndex() {
+        if (historyStore == null)
+            return;
+        long t0 = System.nanoTime();
+        int added = 0;
+        try {
+            searchIndex = SearchIndex.open(historyDir.resolve(SearchIndex.FILE_NAME));
+            for (String peer : historyStore.peers()) {
+                int count = historyStore.count(peer);
+                int start = Math.max(searchIndex.indexedCount(peer), historyStore.first(peer));
+                for (int from = start; from < count; from += INDEX_CATCH_UP_BATCH) {
+                    int rank = from;
+                    for (ChatMessage msg : historyStore.read(peer, from, Math.min(count, from + INDEX_CATCH_UP_BATCH))) {
+                        if (searchIndex.add(peer, rank++, msg.content()))
+                            added++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Index de recherche indisponible : " + e.getMessage());
+            return;
+        }
+        SEARCH_CATCH_UP.record(System.nanoTime() - t0);
+        SEARCH_INDEXED.add(added);
+        SEARCH_DOCUMENTS.set(searchIndex.documentCount());
+    }
+
+    /** Entrée dans le champ de recherche : cherche dans tout l'historique local. */
+    @FXML
+    private void onSearch() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            showContactList();
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> search(query), historyIo)
+                .thenAcceptAsync(results -> showSearchResults(query, results), Platform::runLater);
+    }
+
+    /** Interroge l'index et relit les messages trouvés (thread historyIo). */
+    private List<SearchResult> search(String query) {
+        List<SearchResult> results = new ArrayList<>();
+        if (searchIndex == null || historyStore == null)
+            return results;
+        for (SearchIndex.Hit hit : searchIndex.search(query, SEARCH_LIMIT)) {
+            try {
+                // Message supprimé depuis par la rétention (ou historique effacé) : l'index
+                // le connaît encore. Même thread que le compactage : les bornes sont stables.
+                if (hit.rank() < historyStore.first(hit.peer()) || hit.rank() >= historyStore.count(hit.peer()))
+                    continue;
+                ChatMessage msg = historyStore.read(hit.peer(), hit.rank(), hit.rank() + 1).get(0);
+                results.add(new SearchResult(hit.peer(), msg, SearchIndex.highlights(msg.content(), query)));
+            } catch (IOException e) {
+                System.err.println("Lecture du résultat échouée pour " + hit.peer() + " : " + e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    /** Remplace la liste des conversations par les résultats (Échap pour revenir). */
+    private void showSearchResults(String query, List<SearchResult> results) {
+        // Réponse à une recherche effacée entre-temps : ignorée
+        if (!query.equals(searchField.getText().trim()))
+            return;
+        List<Node> rows = new ArrayList<>(results.size() + 1);
+        Label header = new Label(results.isEmpty()
+                ? "Aucun message trouvé"
+                : results.size() + (results.size() == 1 ? " message trouvé" : " messages trouvés"));
+        header.getStyleClass().add("pelo-section-label");
+        rows.add(header);
+
+        for (SearchResult r : results) {
+            Contact c = contacts.get(r.peer());
+            Label nameLabel = new Label(c != null ? c.displayName() : r.peer());
+            nameLabel.getStyleClass().add("pelo-title-sm");
+            Pane spacer = new Pane();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+            Label timeLabel = new Label(r.message().time());
+            timeLabel.getStyleClass().add("pelo-meta");
+            HBox nameRow = new HBox(nameLabel, spacer, timeLabel);
+            nameRow.setAlignment(Pos.CENTER_LEFT);
+
+            VBox item = new VBox(2, nameRow, highlighted(r.message().content(), r.highlights()));
+            item.getStyleClass().add("pelo-chat-item");
+            item.setOnMouseClicked(e -> {
+                Contact target = contacts.get(r.peer());
+                HBox row = target != null ? itemByPeer.get(target.username()) : null;
+                if (row == null)
+                    return; // pair absent de la liste des contacts
+                searchField.clear();
+                showContactList();
+                selectConversation(target, row);
+            });
+            rows.add(item);
+        }
+        searchResultsContainer.getChildren().setAll(rows);
+        setSearchMode(true);
+    }
+
+    /** Texte du message avec les termes trouvés en gras. */
+    private static TextFlow highlighted(String content, List<int[]> spans) {
+        TextFlow flow = new TextFlow();
+        flow.setMaxWidth(240);
+        int at = 0;
+        for (int[] span : spans) {
+            if (span[0] > at)
+                flow.getChildren().add(styledText(content.substring(at, span[0]), "pelo-search-text"));
+            flow.getChildren().add(styledText(content.substring(span[0], span[1]), "pelo-search-hit"));
+            at = span[1];
+        }
+        if (at < content.length())
+            flow.getChildren().add(styledText(content.substring(at), "pelo-search-text"));
+        return flow;
+    }
+
+    private static Text styledText(String text, String styleClass) {
+        Text t = new Text(text);
+        t.getStyleClass().add(styleClass);
+        return t;
+    }
+
+    private void showContactList() {
+        searchResultsContainer.getChildren().clear();
+        setSearchMode(false);
+    }
+
+    private void setSearchMode(boolean searching) {
+        searchResultsContainer.setVisible(searching);
+        searchResultsContainer.setManaged(searching);
+        chatListContainer.setVisible(!searching);
+        chatListContainer.setManaged(!searching);
+    }
+
     // ═══════════════════════════════════════════════════════
     // DÉCONNEXION
     // ═══════════════════════════════════════════════════════
@@ -755,6 +1433,10 @@ public class ChatController {
             e.printStackTrace();
         }
         socketService.disconnect();
+        closeHistory();
+        contactFilterThread.shutdownNow();
+        presence.discardPending();
+        Metrics.CLIENT.dumpIfRequested();
 
         // Naviguer vers Auth
         try {
@@ -773,26 +1455,27 @@ public class ChatController {
     // ═══════════════════════════════════════════════════════
 
     /**
-     * Ajoute un message à l'historique en mémoire, sauvegarde sur disque,
+     * Ajoute un message à l'historique en mémoire, l'ajoute au journal sur disque,
      * et met à jour le preview dans la liste des contacts.
      *
      * Contient une protection contre les doublons : si le serveur renvoie deux fois
      * le même message (re-livraison), on ne l'ajoute qu'une seule fois.
      */
     private void recordMessage(String peer, ChatMessage msg) {
-        List<ChatMessage> msgs = history.computeIfAbsent(peer, k -> new ArrayList<>());
-
         // Dé-doublonnage : ne pas ajouter si le dernier message est identique
-        if (!msgs.isEmpty()) {
-            ChatMessage last = msgs.get(msgs.size() - 1);
-            if (last.from().equals(msg.from()) && last.content().equals(msg.content())) {
-                // contenu + expéditeur suffisent pour détecter les re-livraisons
-                return;
-            }
+        ChatMessage last = lastMessage(peer);
+        if (last != null && last.from().equals(msg.from()) && last.content().equals(msg.content())) {
+            // contenu + expéditeur suffisent pour détecter les re-livraisons
+            return;
         }
 
-        msgs.add(msg);
-        saveConversation(peer);
+        // Conversation pas en cache : seul le résumé change, le disque fait foi
+        PagedConversation conv = history.peek(peer);
+        if (conv != null)
+            conv.append(msg);
+        ConversationSummary summary = summaries.get(peer);
+        summaries.put(peer, summary != null ? summary.with(msg) : new ConversationSummary(peer, 1, msg));
+        appendToHistory(peer, msg);
 
         HBox item = itemByPeer.get(peer);
         if (item != null)
@@ -839,17 +1522,6 @@ public class ChatController {
         return sp;
     }
 
-    /**
-     * Génère les initiales à partir d'un nom ou username.
-     * Ex: "Amadou Ba" → "AB", "alice_dev" → "AD", "alice" → "AL"
-     */
-    private static String initials(String name) {
-        String[] parts = name.split("[\\s._-]+");
-        if (parts.length >= 2)
-            return (String.valueOf(parts[0].charAt(0)) + parts[1].charAt(0)).toUpperCase();
-        return name.substring(0, Math.min(2, name.length())).toUpperCase();
-    }
-
     /** Retourne l'heure actuelle formatée HH:mm (ex. "14:35"). */
     private static String now() {
         return LocalTime.now().format(TIME_FMT);
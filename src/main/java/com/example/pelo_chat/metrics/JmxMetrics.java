@@ -0,0 +1,143 @@
+package com.example.pelo_chat.metrics;
+
+import com.example.pelo_chat.utils.LatencyHistogram;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vue JMX du registre {@link Metrics} (jconsole, VisualVM, agent de supervision).
+ *
+ * MBean dynamique : les attributs suivent les mesures créées depuis le démarrage, sans
+ * interface à déclarer ni réflexion sur les classes de l'application. Un attribut par
+ * compteur et par jauge (même nom), et cinq par histogramme : nom.count, nom.p50Nanos, nom.p95Nanos,
+ * nom.p99Nanos et nom.maxNanos. Opérations : dump(fichier) et reset().
+ */
+final class JmxMetrics implements DynamicMBean {
+
+    private static final String[] HISTOGRAM_FIELDS = {"count", "p50Nanos", "p95Nanos", "p99Nanos", "maxNanos"};
+
+    private final Metrics metrics;
+
+    JmxMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = metrics.existingCounter(attribute);
+        if (counter != null)
+            return counter.sum();
+        AtomicLong gauge = metrics.existingGauge(attribute);
+        if (gauge != null)
+            return gauge.get();
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram h = dot > 0 ? metrics.existingHistogram(attribute.substring(0, dot)) : null;
+        if (h != null) {
+            switch (attribute.substring(dot + 1)) {
+                case "count" -> {
+                    return h.count();
+                }
+                case "p50Nanos" -> {
+                    return h.percentile(50);
+                }
+                case "p95Nanos" -> {
+                    return h.percentile(95);
+                }
+                case "p99Nanos" -> {
+                    return h.percentile(99);
+                }
+                case "maxNanos" -> {
+                    return h.max();
+                }
+                default -> {
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException ignored) {
+                // Omis, comme le prévoit l'API
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Attribut en lecture seule : " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String action, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        switch (action) {
+            case "dump" -> {
+                if (params == null || params.length != 1 || !(params[0] instanceof String file))
+                    throw new ReflectionException(new IllegalArgumentException("dump(String fichier)"));
+                Path path = Path.of(file);
+                try {
+                    metrics.dump(path);
+                } catch (IOException e) {
+                    throw new MBeanException(e, "Écriture de " + path + " impossible");
+                }
+                return path.toAbsolutePath().toString();
+            }
+            case "reset" -> {
+                metrics.reset();
+                return null;
+            }
+            default -> throw new ReflectionException(new NoSuchMethodException(action));
+        }
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : metrics.counterValues().keySet())
+            attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "Compteur", true, false, false));
+        for (String name : metrics.gaugeValues().keySet())
+            attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "Jauge", true, false, false));
+        for (Map.Entry<String, LatencyHistogram> e : metrics.histograms().entrySet()) {
+            for (String field : HISTOGRAM_FIELDS)
+                attributes.add(new MBeanAttributeInfo(e.getKey() + "." + field, "java.lang.Long",
+                        "Histogramme de latence (ns)", true, false, false));
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("dump", "Écrit toutes les mesures dans un fichier JSON",
+                        new MBeanParameterInfo[] {
+                                new MBeanParameterInfo("fichier", "java.lang.String", "Chemin du fichier")},
+                        "java.lang.String", MBeanOperationInfo.ACTION),
+                new MBeanOperationInfo("reset", "Remet toutes les mesures à zéro",
+                        new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+        };
+        return new MBeanInfo(getClass().getName(), "Métriques du client PELO Chat",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}
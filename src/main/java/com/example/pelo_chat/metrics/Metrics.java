@@ -0,0 +1,199 @@
+package com.example.pelo_chat.metrics;
+
+import com.example.pelo_chat.utils.LatencyHistogram;
+import com.google.gson.stream.JsonWriter;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre des mesures du client : compteurs ({@link LongAdder}), jauges (valeur
+ * courante, {@link AtomicLong}) et histogrammes de latence ({@link LatencyHistogram}),
+ * nommés, créés au premier usage.
+ *
+ * Les points de mesure récupèrent leur compteur ou histogramme une fois (champ
+ * statique) : l'enregistrement ne coûte ensuite qu'une addition sans verrou, depuis
+ * n'importe quel thread. Le registre est publié en MBean ({@link #registerMBean},
+ * {@value #OBJECT_NAME}) et peut être écrit en JSON dans un fichier ({@link #dump}),
+ * depuis JMX ou à la déconnexion avec -Dpelo.metricsDump=fichier.
+ *
+ * Mesures de l'application :
+ *   packets.in.ACTION / packets.out.ACTION  paquets reçus / envoyés par action
+ *   net.bytes.in / net.bytes.out            octets lus / écrits sur le socket
+ *   net.packets.written / net.flushes       paquets écrits / lots écrits (taille moyenne des lots)
+ *   compress.out.raw / .wire / .nanos       compression : avant / après, temps CPU
+ *   compress.in.wire / .raw / .nanos        décompression (à la fin de chaque connexion)
+ *   decode.ACTION                           décodage du contenu (thread réseau)
+ *   decode.frame                            décodage d'une trame (transport NIO)
+ *   fx.lag                                  attente de la livraison sur le thread JavaFX
+ *   dispatch.ACTION                         gestionnaire du paquet (thread JavaFX)
+ *   dispatch.rejected.ACTION / .unhandled   payload illisible / action sans gestionnaire
+ *   presence.received / coalesced / applied / batches   regroupement des STATUS_UPDATE
+ *   conversations.cache.hit / miss / evicted / reclaimed  conversations gardées en cache
+ *   conversation.switch.cached / .uncached  clic sur une conversation → affichée
+ *   history.save                            message reçu ou envoyé → écrit sur disque
+ *   history.append                          écriture seule (thread historyIo)
+ *   message.render                          réception → mise en page qui l'affiche
+ *   contacts.render                         USERS_LIST appliqué → liste affichée
+ *   history.compact                         compactage de l'historique à la connexion
+ *   history.compacted / history.dropped     conversations compactées / messages supprimés
+ *   history.conversations, history.bytes    jauges : occupation disque de l'historique
+ *   search.catchup / search.indexed         rattrapage de l'index de recherche / messages ajoutés
+ *   search.documents                        jauge : messages dans l'index de recherche
+ */
+public final class Metrics {
+
+    /** Registre de l'application. */
+    public static final Metrics CLIENT = new Metrics();
+
+    public static final String OBJECT_NAME = "com.example.pelo_chat:type=Metrics";
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Un compteur par constante de l'énumération, nommé {@code prefix.CONSTANTE} et
+     * rangé à l'indice de son ordinal.
+     */
+    public <E extends Enum<E>> LongAdder[] counters(String prefix, Class<E> keys) {
+        E[] constants = keys.getEnumConstants();
+        LongAdder[] adders = new LongAdder[constants.length];
+        for (E key : constants)
+            adders[key.ordinal()] = counter(prefix + "." + key.name());
+        return adders;
+    }
+
+    /** Jauge : valeur instantanée, remplacée à chaque mesure ({@link AtomicLong#set}). */
+    public AtomicLong gauge(String name) {
+        return gauges.computeIfAbsent(name, n -> new AtomicLong());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /** Compteur déjà créé sous ce nom, sinon null (sans le créer). */
+    LongAdder existingCounter(String name) {
+        return counters.get(name);
+    }
+
+    /** Jauge déjà créée sous ce nom, sinon null (sans la créer). */
+    AtomicLong existingGauge(String name) {
+        return gauges.get(name);
+    }
+
+    /** Histogramme déjà créé sous ce nom, sinon null (sans le créer). */
+    LatencyHistogram existingHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /** Valeurs des compteurs, par nom. */
+    public SortedMap<String, Long> counterValues() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    /** Valeurs des jauges, par nom. */
+    public SortedMap<String, Long> gaugeValues() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        return values;
+    }
+
+    /** Histogrammes, par nom. */
+    public SortedMap<String, LatencyHistogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /** Remet toutes les mesures à zéro (les points de mesure gardent leurs instances). */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        gauges.values().forEach(g -> g.set(0));
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // PUBLICATION
+    // ═══════════════════════════════════════════════════════
+
+    /** Publie le registre sur le serveur MBean de la JVM (sans effet s'il l'est déjà). */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new JmxMetrics(this), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignored) {
+            // Déjà publié (reconnexion, second contrôleur)
+        } catch (JMException e) {
+            System.err.println("Publication JMX des métriques impossible : " + e.getMessage());
+        }
+    }
+
+    /** Écrit les mesures dans le fichier donné par -Dpelo.metricsDump, s'il y en a un. */
+    public void dumpIfRequested() {
+        String file = System.getProperty("pelo.metricsDump");
+        if (file == null || file.isBlank())
+            return;
+        try {
+            dump(Path.of(file));
+        } catch (IOException e) {
+            System.err.println("Écriture des métriques impossible (" + file + ") : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Écrit toutes les mesures dans {@code file} en JSON (remplacement atomique) :
+     * compteurs, jauges, puis pour chaque histogramme nombre, p50, p95, p99 et max en ns.
+     */
+    public void dump(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null)
+            Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp); JsonWriter json = new JsonWriter(out)) {
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("timestamp").value(System.currentTimeMillis());
+            json.name("counters").beginObject();
+            for (Map.Entry<String, Long> e : counterValues().entrySet())
+                json.name(e.getKey()).value(e.getValue());
+            json.endObject();
+            json.name("gauges").beginObject();
+            for (Map.Entry<String, Long> e : gaugeValues().entrySet())
+                json.name(e.getKey()).value(e.getValue());
+            json.endObject();
+            json.name("histograms").beginObject();
+            for (Map.Entry<String, LatencyHistogram> e : histograms().entrySet()) {
+                LatencyHistogram h = e.getValue();
+                json.name(e.getKey()).beginObject()
+                        .name("count").value(h.count())
+                        .name("p50Nanos").value(h.percentile(50))
+                        .name("p95Nanos").value(h.percentile(95))
+                        .name("p99Nanos").value(h.percentile(99))
+                        .name("maxNanos").value(h.max())
+                        .endObject();
+            }
+            json.endObject();
+            json.endObject();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.pelo_chat.model;
+
+/**
+ * Un message dans l'historique d'une conversation.
+ * Sérialisé en JSON pour la persistance locale.
+ *
+ * @param from    expéditeur (username)
+ * @param content texte du message
+ * @param mine    true si envoyé par l'utilisateur courant
+ * @param time    heure au format HH:mm
+ */
+public record ChatMessage(String from, String content, boolean mine, String time) {
+}
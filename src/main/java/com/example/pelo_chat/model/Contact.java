@@ -0,0 +1,98 @@
+package com.example.pelo_chat.model;
+
+/**
+ * Contact affiché dans la liste des conversations (construit à partir d'un User reçu
+ * du serveur, ou d'un expéditeur inconnu).
+ *
+ * Une seule instance par utilisateur, gérée par {@link ContactDirectory} : le statut et
+ * le nom affiché sont modifiés en place, si bien que toutes les références (contact
+ * sélectionné, ligne de liste…) voient immédiatement la nouvelle valeur.
+ */
+public final class Contact {
+
+    private final String username;    // Identifiant unique (sert de clé dans les maps)
+    private final String avatarStyle; // Classe CSS couleur de l'avatar (ex. "pelo-avatar-green")
+    private final String role;        // Rôle ou département (vide pour l'instant côté serveur)
+    private final boolean group;      // true si c'est un groupe (non utilisé pour l'instant)
+    private String displayName;       // Nom affiché (fullName si disponible, sinon username)
+    private String initials;          // 1 ou 2 lettres pour l'avatar
+    private String status;            // "ONLINE" | "OFFLINE"
+    int index = -1;                   // Position dans l'annuaire (tenue par ContactDirectory)
+
+    public Contact(String username, String displayName, String avatarStyle,
+            String role, boolean group, String status) {
+        this.username = username;
+        this.avatarStyle = avatarStyle;
+        this.role = role;
+        this.group = group;
+        this.status = status;
+        setDisplayName(displayName);
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public String initials() {
+        return initials;
+    }
+
+    public String avatarStyle() {
+        return avatarStyle;
+    }
+
+    public String role() {
+        return role;
+    }
+
+    public boolean group() {
+        return group;
+    }
+
+    public String status() {
+        return status;
+    }
+
+    public boolean isOnline() {
+        return "ONLINE".equalsIgnoreCase(status);
+    }
+
+    /** Position dans l'annuaire (= index de la ligne affichée), -1 si absent. */
+    public int index() {
+        return index;
+    }
+
+    /** @return true si le statut a changé */
+    public boolean setStatus(String status) {
+        if (status == null || status.equalsIgnoreCase(this.status))
+            return false;
+        this.status = status;
+        return true;
+    }
+
+    /** Change le nom affiché (et les initiales qui en découlent). */
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+        this.initials = initials(displayName);
+    }
+
+    /**
+     * Génère les initiales à partir d'un nom ou username.
+     * Ex: "Amadou Ba" → "AB", "alice_dev" → "AD", "alice" → "AL"
+     */
+    public static String initials(String name) {
+        String[] parts = name.split("[\\s._-]+");
+        if (parts.length >= 2 && !parts[0].isEmpty() && !parts[1].isEmpty())
+            return (String.valueOf(parts[0].charAt(0)) + parts[1].charAt(0)).toUpperCase();
+        return name.substring(0, Math.min(2, name.length())).toUpperCase();
+    }
+
+    @Override
+    public String toString() {
+        return username + " (" + status + ")";
+    }
+}
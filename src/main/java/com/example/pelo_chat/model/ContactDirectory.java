@@ -0,0 +1,107 @@
+package com.example.pelo_chat.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Annuaire des contacts : ordre d'insertion (celui de la liste affichée) et accès en
+ * temps constant par username, sans tenir compte de la casse.
+ *
+ * Chaque {@link Contact} connaît sa position ({@link Contact#index()}), qui est aussi
+ * celle de sa ligne dans la liste : un paquet (message, statut) est traité en O(1)
+ * quelle que soit la taille de l'annuaire. Seules les suppressions, rares, décalent
+ * les positions suivantes.
+ */
+public class ContactDirectory implements Iterable<Contact> {
+
+    private final List<Contact> ordered = new ArrayList<>();
+    private final Map<String, Contact> byKey = new HashMap<>();
+
+    /** Clé normalisée d'un username (insensible à la casse). */
+    public static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /** Contact correspondant au username (toute casse), ou null. */
+    public Contact get(String username) {
+        return username == null ? null : byKey.get(key(username));
+    }
+
+    public boolean contains(String username) {
+        return get(username) != null;
+    }
+
+    /** Contact à la position donnée. */
+    public Contact get(int index) {
+        return ordered.get(index);
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    public boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    /**
+     * Ajoute un contact en fin d'annuaire.
+     *
+     * @return le contact ajouté, ou celui déjà présent sous ce username
+     */
+    public Contact add(Contact contact) {
+        Contact existing = byKey.putIfAbsent(key(contact.username()), contact);
+        if (existing != null)
+            return existing;
+        contact.index = ordered.size();
+        ordered.add(contact);
+        return contact;
+    }
+
+    /** Retire un contact ; les suivants remontent d'une position. */
+    public Contact remove(String username) {
+        Contact removed = byKey.remove(key(username));
+        if (removed == null)
+            return null;
+        ordered.remove(removed.index);
+        for (int i = removed.index; i < ordered.size(); i++)
+            ordered.get(i).index = i;
+        removed.index = -1;
+        return removed;
+    }
+
+    /** Remplace tout le contenu, dans l'ordre donné (les instances fournies sont conservées). */
+    public void replaceAll(List<Contact> contacts) {
+        for (Contact c : ordered)
+            c.index = -1;
+        ordered.clear();
+        byKey.clear();
+        for (Contact c : contacts)
+            add(c);
+    }
+
+    /**
+     * Change le statut d'un contact, en place.
+     *
+     * @return le contact si son statut a changé, sinon null (inconnu ou inchangé)
+     */
+    public Contact updateStatus(String username, String status) {
+        Contact c = get(username);
+        return c != null && c.setStatus(status) ? c : null;
+    }
+
+    /** Vue non modifiable, dans l'ordre d'affichage. */
+    public List<Contact> asList() {
+        return Collections.unmodifiableList(ordered);
+    }
+
+    @Override
+    public Iterator<Contact> iterator() {
+        return asList().iterator();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.pelo_chat.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Index par préfixe des contacts, pour le filtrage pendant la saisie.
+ *
+ * Chaque contact est rangé sous plusieurs clés repliées comme celles de la recherche
+ * dans l'historique ({@link TextFold#fold}, minuscules, sans accents) :
+ * son username, son nom affiché, chaque mot du nom affiché et ses initiales. Les clés
+ * sont triées dans un tableau : les contacts dont une clé commence par le préfixe
+ * tapé forment une plage contiguë, trouvée par recherche binaire.
+ *
+ * Instance immuable, construite en une fois (voir {@link #build}) et interrogeable
+ * depuis n'importe quel thread.
+ */
+public final class ContactPrefixIndex {
+
+    /** Contact à indexer (copie des champs utiles, prise sur le thread JavaFX). */
+    public record Entry(String username, String displayName, String initials) {
+    }
+
+    private record Key(String key, int owner) {
+    }
+
+    public static final ContactPrefixIndex EMPTY = build(List.of());
+
+    private final String[] usernames; // par numéro de contact
+    private final String[] keys;      // clés triées
+    private final int[] owners;       // numéro du contact de chaque clé
+
+    private ContactPrefixIndex(String[] usernames, String[] keys, int[] owners) {
+        this.usernames = usernames;
+        this.keys = keys;
+        this.owners = owners;
+    }
+
+    public static ContactPrefixIndex build(List<Entry> contacts) {
+        String[] usernames = new String[contacts.size()];
+        List<Key> pairs = new ArrayList<>(contacts.size() * 4);
+        for (int id = 0; id < contacts.size(); id++) {
+            Entry c = contacts.get(id);
+            usernames[id] = c.username();
+            Set<String> own = new HashSet<>();
+            own.add(TextFold.fold(c.username()));
+            if (c.displayName() != null) {
+                String name = TextFold.fold(c.displayName());
+                own.add(name);
+                for (String word : name.split("[\\s._'-]+"))
+                    own.add(word);
+            }
+            if (c.initials() != null)
+                own.add(TextFold.fold(c.initials()));
+            own.remove("");
+            for (String key : own)
+                pairs.add(new Key(key, id));
+        }
+        pairs.sort((a, b) -> a.key().compareTo(b.key()));
+
+        String[] keys = new String[pairs.size()];
+        int[] owners = new int[pairs.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = pairs.get(i).key();
+            owners[i] = pairs.get(i).owner();
+        }
+        return new ContactPrefixIndex(usernames, keys, owners);
+    }
+
+    /** Nombre de contacts indexés. */
+    public int size() {
+        return usernames.length;
+    }
+
+    /**
+     * Usernames des contacts dont une clé commence par chaque mot de la requête
+     * ("ama ba" trouve "Amadou Ba").
+     *
+     * @param cancelled consulté pendant le parcours : une requête périmée s'arrête tôt
+     * @return les usernames trouvés, ou null si la requête a été abandonnée
+     */
+    public Set<String> match(String query, BooleanSupplier cancelled) {
+        String[] words = TextFold.fold(query).trim().split("[\\s._'-]+");
+        BitSet result = null;
+        for (String word : words) {
+            if (word.isEmpty())
+                continue;
+            BitSet found = new BitSet(usernames.length);
+            int i = lowerBound(word);
+            for (int n = 0; i < keys.length && keys[i].startsWith(word); i++, n++) {
+                if ((n & 0x3FF) == 0 && cancelled.getAsBoolean())
+                    return null;
+                found.set(owners[i]);
+            }
+            if (result == null)
+                result = found;
+            else
+                result.and(found);
+            if (result.isEmpty())
+                break;
+        }
+        if (result == null)
+            return Collections.emptySet();
+        Set<String> matches = new HashSet<>(result.cardinality() * 2);
+        for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1))
+            matches.add(usernames[id]);
+        return matches;
+    }
+
+    /** Position de la première clé >= prefix (les clés peuvent se répéter). */
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.pelo_chat.model;
+
+/**
+ * Résumé d'une conversation, suffisant pour afficher la liste des contacts sans lire
+ * tout l'historique : le dernier message (aperçu + heure) et le nombre de messages.
+ *
+ * @param peer  username du pair
+ * @param count nombre de messages échangés
+ * @param last  dernier message (null si aucun)
+ */
+public record ConversationSummary(String peer, int count, ChatMessage last) {
+
+    /** Résumé après l'ajout d'un message. */
+    public ConversationSummary with(ChatMessage msg) {
+        return new ConversationSummary(peer, count + 1, msg);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.pelo_chat.model;
+
+/**
+ * Changement de statut d'un contact, décodé d'un paquet STATUS_UPDATE :
+ * {"username":"x","status":"ONLINE|OFFLINE"}
+ *
+ * @param username utilisateur concerné
+ * @param status   "ONLINE" | "OFFLINE"
+ */
+public record StatusEvent(String username, String status) {
+}
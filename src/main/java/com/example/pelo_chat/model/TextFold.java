@@ -0,0 +1,47 @@
+package com.example.pelo_chat.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Repli d'un texte pour la comparaison : minuscules, sans accents, ligatures développées
+ * ("Cœur" → "coeur"). Partagé par la recherche dans l'historique et le filtrage des
+ * contacts, pour qu'une même saisie trouve les mêmes mots des deux côtés.
+ */
+public final class TextFold {
+
+    // Repli des caractères latins courants (accents, ligatures), calculé une fois
+    private static final String[] FOLD = new String[0x250];
+
+    static {
+        for (char c = 0; c < FOLD.length; c++) {
+            String lower = String.valueOf(c).toLowerCase(Locale.ROOT);
+            String folded = Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            FOLD[c] = switch (c) {
+                case 'œ', 'Œ' -> "oe";
+                case 'æ', 'Æ' -> "ae";
+                case 'ß' -> "ss";
+                default -> folded;
+            };
+        }
+    }
+
+    private TextFold() {
+    }
+
+    /** Texte en minuscules, sans accents, ligatures développées ("Cœur" → "coeur"). */
+    public static String fold(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++)
+            append(out, text.charAt(i));
+        return out.toString();
+    }
+
+    /** Ajoute à {@code out} le repli du caractère {@code c}. */
+    public static void append(StringBuilder out, char c) {
+        if (c < FOLD.length)
+            out.append(FOLD[c]);
+        else
+            out.append(Character.toLowerCase(c));
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.pelo_chat.service;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression DEFLATE (zlib, JDK uniquement) d'une connexion, dans les deux sens.
+ *
+ * Chaque lot envoyé se termine par un SYNC_FLUSH : tout ce qui a été écrit est
+ * décodable immédiatement par l'autre côté, un message interactif n'attend donc jamais
+ * la suite du flux. Le dictionnaire est conservé d'un lot à l'autre, ce qui profite aux
+ * paquets répétitifs (noms de champs JSON, usernames…) et surtout aux gros USERS_LIST.
+ *
+ * Activée par connexion (voir SocketService#setCompression) et annoncée au serveur dans
+ * le paquet HELLO. Les compteurs permettent de mesurer le gain (ratio) et son coût
+ * (temps passé dans zlib) ; SocketService les ajoute aux compteurs compress.* de
+ * Metrics à la fin de chaque connexion.
+ *
+ * Le transport appelle {@link #close()} à la fermeture de la connexion : les buffers
+ * natifs de zlib sont libérés tout de suite, sans attendre le GC. Les compteurs restent
+ * lisibles après la fermeture.
+ */
+public class ConnectionCompression {
+
+    private static final int CHUNK = 8 * 1024;
+
+    private final Deflater deflater;
+    private final Inflater inflater = new Inflater();
+    private byte[] deflated = new byte[CHUNK]; // sortie de deflate(ByteBuffer), réutilisée
+    private boolean closed;                    // zlib libéré (sous le verrou de deflater et d'inflater)
+
+    // ── Mesures ──────────────────────────────────────────
+    private final AtomicLong rawSent = new AtomicLong();
+    private final AtomicLong wireSent = new AtomicLong();
+    private final AtomicLong wireReceived = new AtomicLong();
+    private final AtomicLong rawReceived = new AtomicLong();
+    private final AtomicLong deflateNanos = new AtomicLong();
+    private final AtomicLong inflateNanos = new AtomicLong();
+
+    public ConnectionCompression() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /** @param level niveau zlib, de 1 (rapide) à 9 (compact) */
+    public ConnectionCompression(int level) {
+        this.deflater = new Deflater(level);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // FLUX BLOQUANTS (SocketTransport)
+    // ═══════════════════════════════════════════════════════
+
+    /** Flux compressé : chaque flush() émet un SYNC_FLUSH puis flush le flux sous-jacent. */
+    public OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            private final byte[] buf = new byte[CHUNK];
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                rawSent.addAndGet(len);
+                synchronized (deflater) {
+                    ensureOpen();
+                    deflater.setInput(b, off, len);
+                }
+                while (!deflaterNeedsInput())
+                    drain(Deflater.NO_FLUSH);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // Sortie pleine : il reste des octets à émettre pour ce flush
+                while (drain(Deflater.SYNC_FLUSH) == buf.length) {
+                }
+                out.flush();
+            }
+
+            private int drain(int mode) throws IOException {
+                long t0 = System.nanoTime();
+                int n;
+                synchronized (deflater) {
+                    ensureOpen();
+                    n = deflater.deflate(buf, 0, buf.length, mode);
+                }
+                deflateNanos.addAndGet(System.nanoTime() - t0);
+                if (n > 0) {
+                    out.write(buf, 0, n);
+                    wireSent.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /** Flux décompressé : rend les octets dès qu'un SYNC_FLUSH les a rendus disponibles. */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            private final byte[] buf = new byte[CHUNK];
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0)
+                    return 0;
+                try {
+                    while (true) {
+                        long t0 = System.nanoTime();
+                        synchronized (inflater) {
+                            ensureOpen();
+                            int n = inflater.inflate(b, off, len);
+                            inflateNanos.addAndGet(System.nanoTime() - t0);
+                            if (n > 0) {
+                                rawReceived.addAndGet(n);
+                                return n;
+                            }
+                            if (inflater.finished() || inflater.needsDictionary())
+                                return -1;
+                        }
+                        // Lecture bloquante hors du verrou : close() peut libérer zlib pendant l'attente
+                        int r = in.read(buf, 0, buf.length);
+                        if (r < 0)
+                            return -1;
+                        wireReceived.addAndGet(r);
+                        synchronized (inflater) {
+                            ensureOpen();
+                            inflater.setInput(buf, 0, r);
+                        }
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Flux compressé invalide", e);
+                }
+            }
+
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // BUFFERS (NioTransport)
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Compresse tout {@code src} suivi d'un SYNC_FLUSH.
+     *
+     * @return octets à écrire, valables jusqu'au prochain appel
+     */
+    ByteBuffer deflate(ByteBuffer src) throws IOException {
+        rawSent.addAndGet(src.remaining());
+        long t0 = System.nanoTime();
+        int len = 0;
+        synchronized (deflater) {
+            ensureOpen();
+            deflater.setInput(src);
+            do {
+                if (len == deflated.length)
+                    deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                len += deflater.deflate(deflated, len, deflated.length - len, Deflater.SYNC_FLUSH);
+            } while (len == deflated.length);
+        }
+        deflateNanos.addAndGet(System.nanoTime() - t0);
+        wireSent.addAndGet(len);
+        return ByteBuffer.wrap(deflated, 0, len);
+    }
+
+    /** Fournit au décompresseur des octets reçus (consommés au fil des appels à inflate). */
+    void feed(ByteBuffer compressed) throws IOException {
+        wireReceived.addAndGet(compressed.remaining());
+        synchronized (inflater) {
+            ensureOpen();
+            inflater.setInput(compressed);
+        }
+    }
+
+    /**
+     * Décompresse dans {@code dst} autant que possible.
+     *
+     * @return nombre d'octets produits ; 0 quand il faut de nouvelles données ou de la place
+     */
+    int inflate(ByteBuffer dst) throws IOException {
+        try {
+            long t0 = System.nanoTime();
+            int n;
+            synchronized (inflater) {
+                ensureOpen();
+                n = inflater.inflate(dst);
+            }
+            inflateNanos.addAndGet(System.nanoTime() - t0);
+            rawReceived.addAndGet(n);
+            return n;
+        } catch (DataFormatException e) {
+            throw new IOException("Flux compressé invalide", e);
+        }
+    }
+
+    /** true quand toutes les données fournies par {@link #feed} ont été décompressées. */
+    boolean needsInput() {
+        synchronized (inflater) {
+            return closed || inflater.needsInput();
+        }
+    }
+
+    private boolean deflaterNeedsInput() {
+        synchronized (deflater) {
+            return closed || deflater.needsInput();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Compression fermée");
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // FERMETURE
+    // ═══════════════════════════════════════════════════════
+
+    /** Libère les buffers natifs de zlib ; toute compression ultérieure échoue (IOException). */
+    public void close() {
+        synchronized (deflater) {
+            synchronized (inflater) {
+                if (closed)
+                    return;
+                closed = true;
+            }
+            deflater.end();
+        }
+        synchronized (inflater) {
+            inflater.end();
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // MESURES
+    // ═══════════════════════════════════════════════════════
+
+    /** Octets envoyés avant compression. */
+    public long rawBytesSent() {
+        return rawSent.get();
+    }
+
+    /** Octets envoyés sur le fil. */
+    public long compressedBytesSent() {
+        return wireSent.get();
+    }
+
+    /** Octets reçus sur le fil. */
+    public long compressedBytesReceived() {
+        return wireReceived.get();
+    }
+
+    /** Octets reçus après décompression. */
+    public long rawBytesReceived() {
+        return rawReceived.get();
+    }
+
+    /** Temps passé à compresser (ns). */
+    public long deflateNanos() {
+        return deflateNanos.get();
+    }
+
+    /** Temps passé à décompresser (ns). */
+    public long inflateNanos() {
+        return inflateNanos.get();
+    }
+
+    /** Taille avant / taille sur le fil, tous sens confondus (1 = aucun gain). */
+    public double ratio() {
+        long wire = wireSent.get() + wireReceived.get();
+        return wire == 0 ? 1 : (rawSent.get() + rawReceived.get()) / (double) wire;
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.LatencyHistogram;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport non bloquant : un SocketChannel piloté par une boucle Selector sur un seul
+ * thread, qui gère connexion, lecture et écriture.
+ *
+ *  - open() rend la main immédiatement (résolution DNS et connexion faites par la
+ *    boucle, avec un délai max de {@link #CONNECT_TIMEOUT_MS} ms) : il peut donc être
+ *    appelé depuis le thread JavaFX. Un échec est signalé par Listener.onClosed().
+ *  - Lecture dans un ByteBuffer direct : le {@link PacketCodec} de la connexion repère
+ *    les trames complètes (fin de ligne ou préfixe de longueur) et les décode en place.
+ *  - Écriture : les paquets en file sont regroupés dans un ByteBuffer direct et écrits
+ *    quand le socket est prêt (OP_WRITE), sans jamais bloquer l'appelant de send().
+ */
+public class NioTransport implements Transport {
+
+    /** Délai max d'établissement de la connexion. */
+    public static final long CONNECT_TIMEOUT_MS = 5000;
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    // Mesures (voir Metrics) : octets sur le fil, lots écrits, décodage des trames
+    private static final LongAdder BYTES_IN = Metrics.CLIENT.counter("net.bytes.in");
+    private static final LongAdder BYTES_OUT = Metrics.CLIENT.counter("net.bytes.out");
+    private static final LongAdder PACKETS_WRITTEN = Metrics.CLIENT.counter("net.packets.written");
+    private static final LongAdder FLUSHES = Metrics.CLIENT.counter("net.flushes");
+    private static final LatencyHistogram DECODE_FRAME = Metrics.CLIENT.histogram("decode.frame");
+
+    private record Pending(Packet packet, CompletableFuture<Void> done) {
+    }
+
+    private final PacketCodec codec;
+    private final PacketDecoder decoder;
+    private final int capacity;
+    private final ConnectionCompression compression;
+
+    // ── File d'envoi (alimentée par n'importe quel thread) ───
+    private final Queue<Pending> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong packetsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    private Selector selector;
+    private SocketChannel channel;
+    private volatile boolean closing;   // shutdown() : vider la file puis fermer
+    private volatile boolean stopped;   // close() : fermer immédiatement
+    private volatile boolean terminated; // boucle terminée : plus rien ne sera écrit
+    private volatile Runnable afterClose;
+
+    // ── État de la boucle (thread NIO uniquement) ────────────
+    private ByteBuffer readBuf = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+    private int scanned;                 // octets de readBuf déjà parcourus sans fin de trame
+    private ByteBuffer compressedBuf;    // octets reçus avant décompression (si compression)
+
+    private final ByteBuffer writeBuf = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    private ByteBuffer pendingBytes;     // octets en cours d'écriture (writeBuf ou paquet géant)
+    private Pending carry;               // paquet retiré de la file mais pas encore placé
+    private byte[] carryBytes;
+    private final List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+
+    public NioTransport(PacketCodec codec, PacketDecoder decoder) {
+        this(codec, decoder, PacketWriter.DEFAULT_CAPACITY);
+    }
+
+    public NioTransport(PacketCodec codec, PacketDecoder decoder, int capacity) {
+        this(codec, decoder, capacity, null);
+    }
+
+    /** @param compression compression DEFLATE de la connexion, ou null */
+    public NioTransport(PacketCodec codec, PacketDecoder decoder, int capacity, ConnectionCompression compression) {
+        this.codec = codec;
+        this.decoder = decoder;
+        this.capacity = capacity;
+        this.compression = compression;
+        if (compression != null)
+            compressedBuf = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+    }
+
+    @Override
+    public void open(String host, int port, Listener listener) throws IOException {
+        selector = Selector.open();
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        Thread thread = new Thread(() -> loop(host, port, listener), "pelo-nio");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // BOUCLE SELECTOR
+    // ═══════════════════════════════════════════════════════
+
+    private void loop(String host, int port, Listener listener) {
+        boolean connected = false;
+        IOException failure = null;
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key;
+            if (channel.connect(new InetSocketAddress(host, port))) {
+                connected = true;
+                key = channel.register(selector, SelectionKey.OP_READ);
+                queueHandshake();
+            } else {
+                key = channel.register(selector, SelectionKey.OP_CONNECT);
+            }
+            long deadline = System.nanoTime() + CONNECT_TIMEOUT_MS * 1_000_000L;
+
+            while (!stopped) {
+                if (connected) {
+                    selector.select();
+                } else {
+                    long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                    if (remainingMs <= 0)
+                        throw new SocketTimeoutException("Délai de connexion dépassé (" + host + ":" + port + ")");
+                    selector.select(remainingMs);
+                }
+                boolean ready = selector.selectedKeys().remove(key);
+
+                if (!connected) {
+                    if (ready && key.isConnectable() && channel.finishConnect()) {
+                        connected = true;
+                        key.interestOps(SelectionKey.OP_READ);
+                        queueHandshake();
+                    } else {
+                        if (closing)
+                            break;
+                        continue;
+                    }
+                }
+                if (ready && key.isReadable() && !readFrames(listener)) {
+                    failure = closing ? null : new IOException("Fermée par le serveur");
+                    break;
+                }
+                flushOutbound(key);
+                if (closing && pendingBytes == null && carry == null && outbound.isEmpty())
+                    break;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException ignored) {
+            }
+            terminated = true;
+            if (compression != null)
+                compression.close(); // ses compteurs restent lisibles pour SocketService
+            failPending(new IOException("Connexion fermée"));
+            listener.onClosed(closing || stopped ? null : failure, connected);
+            Runnable then = afterClose;
+            if (then != null)
+                then.run();
+        }
+    }
+
+    /** Annonce du codec : écrite en clair avant tout paquet, dès la connexion établie. */
+    private void queueHandshake() {
+        byte[] handshake = PacketCodec.handshake(codec, compression != null);
+        if (handshake != null)
+            pendingBytes = ByteBuffer.wrap(handshake);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // LECTURE : découpage en trames sur le ByteBuffer
+    // ═══════════════════════════════════════════════════════
+
+    /** Lit ce qui est disponible et décode les trames complètes. false = fin de flux. */
+    private boolean readFrames(Listener listener) throws IOException {
+        if (compression == null) {
+            int n = channel.read(readBuf);
+            if (n < 0)
+                return false;
+            BYTES_IN.add(n);
+            extractFrames(listener);
+            return true;
+        }
+
+        int n = channel.read(compressedBuf);
+        if (n < 0)
+            return false;
+        BYTES_IN.add(n);
+        compressedBuf.flip();
+        compression.feed(compressedBuf);
+        // Décompresse par morceaux : readBuf est vidé (ou agrandi) entre deux passes
+        while (true) {
+            int inflated = compression.inflate(readBuf);
+            if (inflated == 0 && compression.needsInput())
+                break;
+            if (inflated == 0 && readBuf.hasRemaining())
+                throw new IOException("Flux compressé terminé par le serveur");
+            extractFrames(listener);
+        }
+        compressedBuf.clear();
+        return true;
+    }
+
+    /** Décode les trames complètes de readBuf et garde la dernière, incomplète. */
+    private void extractFrames(Listener listener) throws IOException {
+        int limit = readBuf.position();
+        int start = 0;
+        int end;
+        while ((end = codec.frameEnd(readBuf, start, Math.max(start, scanned), limit)) >= 0) {
+            decodeFrame(start, end, listener);
+            start = end;
+        }
+        if (start > 0) {
+            // Garde uniquement la trame incomplète, en début de buffer
+            readBuf.limit(limit).position(start);
+            readBuf.compact();
+        }
+        scanned = readBuf.position();
+
+        if (!readBuf.hasRemaining()) {
+            int max = codec.maxFrameBytes();
+            if (readBuf.capacity() >= max)
+                throw new IOException("Trame supérieure à " + max + " octets");
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.min(readBuf.capacity() * 2, max));
+            readBuf.flip();
+            bigger.put(readBuf);
+            readBuf = bigger;
+        }
+    }
+
+    /** Décode la trame [start, end) du buffer de lecture en un paquet. */
+    private void decodeFrame(int start, int end, Listener listener) throws IOException {
+        ByteBuffer frame = readBuf.duplicate();
+        frame.limit(end).position(start);
+        try {
+            long t0 = System.nanoTime();
+            Packet packet = codec.decode(frame);
+            DECODE_FRAME.record(System.nanoTime() - t0);
+            if (packet != null) {
+                decoder.decodePayload(packet);
+                listener.onPacket(packet);
+            }
+        } catch (JsonParseException e) {
+            System.err.println("Trame illisible ignorée : " + e.getMessage());
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ÉCRITURE
+    // ═══════════════════════════════════════════════════════
+
+    @Override
+    public CompletableFuture<Void> send(Packet packet) {
+        if (selector == null || closing || stopped || terminated)
+            return CompletableFuture.failedFuture(new IOException("Connexion fermée"));
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("File d'envoi pleine (" + capacity + " paquets)"));
+        }
+        maxDepth.accumulateAndGet(depth.get(), Math::max);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Pending pending = new Pending(packet, done);
+        outbound.add(pending);
+        // Boucle terminée entre le test ci-dessus et l'ajout : failPending a pu passer avant
+        if (terminated && outbound.remove(pending)) {
+            depth.decrementAndGet();
+            done.completeExceptionally(new IOException("Connexion fermée"));
+            return done;
+        }
+        selector.wakeup();
+        return done;
+    }
+
+    /** Écrit tant que le socket accepte ; sinon s'abonne à OP_WRITE et rend la main. */
+    private void flushOutbound(SelectionKey key) throws IOException {
+        while (true) {
+            if (pendingBytes == null || !pendingBytes.hasRemaining()) {
+                if (!inFlight.isEmpty()) {
+                    // Lot précédent entièrement écrit (l'annonce du codec n'en est pas un)
+                    packetsWritten.addAndGet(inFlight.size());
+                    PACKETS_WRITTEN.add(inFlight.size());
+                    flushes.incrementAndGet();
+                    FLUSHES.increment();
+                    inFlight.forEach(f -> f.complete(null));
+                    inFlight.clear();
+                }
+                if (!fillWriteBuffer()) {
+                    pendingBytes = null;
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+                if (compression != null)
+                    pendingBytes = compression.deflate(pendingBytes); // un SYNC_FLUSH par lot
+            }
+            BYTES_OUT.add(channel.write(pendingBytes));
+            if (pendingBytes.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    /** Regroupe les paquets en file dans writeBuf. false s'il n'y a rien à écrire. */
+    private boolean fillWriteBuffer() {
+        writeBuf.clear();
+        while (true) {
+            Pending p;
+            byte[] bytes;
+            if (carry != null) {
+                p = carry;
+                bytes = carryBytes;
+                carry = null;
+                carryBytes = null;
+            } else {
+                p = outbound.poll();
+                if (p == null)
+                    break;
+                depth.decrementAndGet();
+                bytes = codec.encode(p.packet());
+            }
+            if (bytes.length > writeBuf.remaining()) {
+                if (writeBuf.position() == 0) {
+                    // Paquet plus grand que le buffer : écrit seul, directement
+                    pendingBytes = ByteBuffer.wrap(bytes);
+                    inFlight.add(p.done());
+                    return true;
+                }
+                carry = p;
+                carryBytes = bytes;
+                break;
+            }
+            writeBuf.put(bytes);
+            inFlight.add(p.done());
+        }
+        writeBuf.flip();
+        pendingBytes = writeBuf;
+        return writeBuf.hasRemaining();
+    }
+
+    private void failPending(IOException cause) {
+        inFlight.forEach(f -> f.completeExceptionally(cause));
+        inFlight.clear();
+        if (carry != null)
+            carry.done().completeExceptionally(cause);
+        carry = null;
+        Pending p;
+        while ((p = outbound.poll()) != null) {
+            depth.decrementAndGet();
+            p.done().completeExceptionally(cause);
+        }
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // FERMETURE
+    // ═══════════════════════════════════════════════════════
+
+    @Override
+    public void shutdown(Runnable afterClose) {
+        this.afterClose = afterClose;
+        closing = true;
+        if (selector == null) {
+            if (afterClose != null)
+                afterClose.run();
+            return;
+        }
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        if (selector != null)
+            selector.wakeup();
+    }
+
+    @Override
+    public int queueDepth() {
+        return depth.get();
+    }
+
+    @Override
+    public int maxQueueDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long packetsWritten() {
+        return packetsWritten.get();
+    }
+
+    @Override
+    public long flushes() {
+        return flushes.get();
+    }
+}
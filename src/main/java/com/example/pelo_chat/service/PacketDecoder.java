@@ -0,0 +1,77 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.StatusEvent;
+import com.example.pelo_chat.model.User;
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.LatencyHistogram;
+import com.example.pelo_chat.utils.Packet;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Étape de décodage exécutée sur le thread réseau, avant la livraison au thread JavaFX.
+ *
+ * Le JSON imbriqué dans {@code Packet.content} est converti en objets du modèle et
+ * rangé dans {@code Packet.payload} :
+ *   USERS_LIST       → User[]
+ *   STATUS_UPDATE    → StatusEvent
+ *   MESSAGE_RECEIVED → ChatMessage (horodaté à la réception)
+ * Le thread JavaFX n'a plus qu'à appliquer ces objets à l'interface.
+ *
+ * Un décodeur par action, rangé dans une table indexée par {@link Action} : les
+ * actions sans contenu à décoder n'en ont pas. Le temps de chaque décodeur est mesuré
+ * dans l'histogramme decode.ACTION (voir Metrics).
+ */
+public class PacketDecoder {
+
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Convertit le contenu d'un paquet en objet du modèle (null si inexploitable). */
+    @FunctionalInterface
+    public interface PayloadDecoder {
+        Object decode(Packet packet);
+    }
+
+    private final Map<Action, PayloadDecoder> decoders = new EnumMap<>(Action.class);
+    private final Map<Action, LatencyHistogram> timings = new EnumMap<>(Action.class);
+
+    public PacketDecoder(Gson gson) {
+        decoders.put(Action.USERS_LIST, packet -> {
+            User[] users = gson.fromJson(packet.getContent(), User[].class);
+            return users != null ? users : new User[0];
+        });
+        // null si username ou status manque (voir JsonAdapters)
+        decoders.put(Action.STATUS_UPDATE, packet -> gson.fromJson(packet.getContent(), StatusEvent.class));
+        decoders.put(Action.MESSAGE_RECEIVED, packet -> new ChatMessage(
+                packet.getFrom(), packet.getContent(), false, LocalTime.now().format(TIME_FMT)));
+        for (Action action : decoders.keySet())
+            timings.put(action, Metrics.CLIENT.histogram("decode." + action.name()));
+    }
+
+    /**
+     * Horodate la réception du paquet et renseigne son payload selon son action. Un
+     * contenu illisible laisse le payload à null : le paquet est livré tel quel et
+     * ignoré par les contrôleurs.
+     */
+    public void decodePayload(Packet packet) {
+        long t0 = System.nanoTime();
+        packet.setReceivedNanos(t0);
+        Action action = packet.actionType();
+        PayloadDecoder decoder = decoders.get(action);
+        if (decoder == null)
+            return;
+        try {
+            packet.setPayload(decoder.decode(packet));
+        } catch (JsonParseException e) {
+            System.err.println("Contenu illisible pour " + packet.getAction() + " : " + e.getMessage());
+        }
+        timings.get(action).record(System.nanoTime() - t0);
+    }
+}
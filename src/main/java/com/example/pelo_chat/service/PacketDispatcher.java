@@ -0,0 +1,87 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.LatencyHistogram;
+import com.example.pelo_chat.utils.Packet;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Table de distribution des paquets reçus, indexée par {@link Action}.
+ *
+ * Chaque contrôleur crée la sienne et y abonne un gestionnaire par action qu'il traite
+ * ({@link #on}) ; les paquets lui sont ensuite livrés par {@link #dispatch} (passé comme
+ * callback à SocketService). Le payload a déjà été décodé sur le thread réseau
+ * ({@link PacketDecoder}) : un gestionnaire typé ne reçoit que des payloads du bon type.
+ *
+ * Par action, le registre Metrics reçoit le temps passé dans les gestionnaires
+ * (histogramme dispatch.ACTION, dont le nombre est celui des paquets traités), les
+ * paquets dont le payload est absent ou illisible (dispatch.rejected.ACTION) et ceux
+ * sans gestionnaire (dispatch.unhandled.ACTION), passés au gestionnaire par défaut
+ * s'il y en a un.
+ *
+ * Thread unique (celui de la livraison, JavaFX en pratique).
+ */
+public final class PacketDispatcher {
+
+    // Mesures par action (indice = ordinal)
+    private static final LongAdder[] REJECTED = Metrics.CLIENT.counters("dispatch.rejected", Action.class);
+    private static final LongAdder[] UNHANDLED = Metrics.CLIENT.counters("dispatch.unhandled", Action.class);
+    private static final LatencyHistogram[] TIMINGS = new LatencyHistogram[Action.values().length];
+
+    static {
+        for (Action a : Action.values())
+            TIMINGS[a.ordinal()] = Metrics.CLIENT.histogram("dispatch." + a.name());
+    }
+
+    private final Map<Action, Consumer<Packet>> handlers = new EnumMap<>(Action.class);
+    private Consumer<Packet> fallback;
+
+    /** Abonne un gestionnaire au paquet brut (remplace le précédent pour cette action). */
+    public PacketDispatcher on(Action action, Consumer<Packet> handler) {
+        handlers.put(action, handler);
+        return this;
+    }
+
+    /**
+     * Abonne un gestionnaire au payload décodé : les paquets dont le payload n'est pas
+     * du type attendu sont comptés comme rejetés et ignorés.
+     */
+    public <T> PacketDispatcher on(Action action, Class<T> payloadType, Consumer<T> handler) {
+        return on(action, packet -> {
+            T payload = packet.payloadAs(payloadType);
+            if (payload == null) {
+                REJECTED[action.ordinal()].increment();
+                return;
+            }
+            handler.accept(payload);
+        });
+    }
+
+    /** Gestionnaire des paquets sans gestionnaire dédié (ils restent comptés comme non traités). */
+    public PacketDispatcher otherwise(Consumer<Packet> handler) {
+        this.fallback = handler;
+        return this;
+    }
+
+    /** Livre un paquet à son gestionnaire. */
+    public void dispatch(Packet packet) {
+        if (packet == null)
+            return;
+        Action action = packet.actionType();
+        Consumer<Packet> handler = handlers.get(action);
+        if (handler == null) {
+            UNHANDLED[action.ordinal()].increment();
+            if (fallback != null)
+                fallback.accept(packet);
+            return;
+        }
+        long t0 = System.nanoTime();
+        handler.accept(packet);
+        TIMINGS[action.ordinal()].record(System.nanoTime() - t0);
+    }
+}
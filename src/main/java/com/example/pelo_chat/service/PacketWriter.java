@@ -0,0 +1,190 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipeline d'envoi asynchrone : un thread dédié écrit les paquets sur le socket.
+ *
+ * {@link #send(Packet)} ne fait que déposer le paquet dans une file bornée et rend la
+ * main immédiatement (jamais de blocage du thread JavaFX, même si le serveur est lent).
+ * Le thread d'écriture regroupe tous les paquets en attente (au plus {@link #MAX_BATCH})
+ * dans le buffer du flux et ne fait qu'un seul flush — donc un seul appel système et,
+ * le plus souvent, un seul segment TCP — par lot. Paquets écrits et lots sont comptés
+ * par connexion et dans Metrics (net.packets.written, net.flushes).
+ */
+public class PacketWriter {
+
+    /** Capacité par défaut de la file d'envoi. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Nombre max de paquets écrits entre deux flush. */
+    private static final int MAX_BATCH = 256;
+
+    private static final LongAdder PACKETS_WRITTEN = Metrics.CLIENT.counter("net.packets.written");
+    private static final LongAdder FLUSHES = Metrics.CLIENT.counter("net.flushes");
+
+    /** Paquet en attente + promesse complétée une fois le paquet flushé. */
+    private record Pending(Packet packet, CompletableFuture<Void> done, Runnable afterDrain) {
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final OutputStream out;
+    private final PacketCodec codec;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // ── Mesures ──────────────────────────────────────────
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong packetsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    /**
+     * @param out      flux de sortie du socket, bufferisé (un flush par lot)
+     * @param codec    encodage des paquets sur le fil (JSON ou binaire)
+     * @param capacity taille max de la file ; au-delà, send() échoue au lieu de bloquer
+     */
+    public PacketWriter(OutputStream out, PacketCodec codec, int capacity) {
+        this.out = out;
+        this.codec = codec;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "pelo-writer");
+        // Daemon : ce thread ne bloque pas l'arrêt de la JVM
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Met un paquet en file d'envoi sans jamais bloquer l'appelant.
+     *
+     * @return promesse complétée quand le paquet a été flushé sur le socket, ou en
+     *         erreur si la file est pleine, le writer fermé ou l'écriture impossible
+     */
+    public CompletableFuture<Void> send(Packet packet) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.completeExceptionally(new IOException("Connexion fermée"));
+            return done;
+        }
+        if (!queue.offer(new Pending(packet, done, null))) {
+            done.completeExceptionally(new IOException("File d'envoi pleine (" + queue.size() + " paquets)"));
+            return done;
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return done;
+    }
+
+    /**
+     * Refuse les nouveaux paquets, écrit ceux déjà en file puis exécute
+     * {@code afterDrain} sur le thread d'écriture (ex. fermeture du socket).
+     */
+    public void shutdown(Runnable afterDrain) {
+        closed = true;
+        if (!queue.offer(new Pending(null, null, afterDrain))) {
+            // File pleine : inutile d'attendre, on interrompt l'écriture
+            thread.interrupt();
+            if (afterDrain != null)
+                afterDrain.run();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                Runnable afterDrain = null;
+                boolean stop = false;
+                int written = 0;
+                for (Pending p : batch) {
+                    if (p.packet() == null) {
+                        afterDrain = p.afterDrain();
+                        stop = true;
+                        break;
+                    }
+                    codec.write(p.packet(), out);
+                    written++;
+                }
+                out.flush();
+                flushes.incrementAndGet();
+                FLUSHES.increment();
+                packetsWritten.addAndGet(written);
+                PACKETS_WRITTEN.add(written);
+                IOException closedCause = new IOException("Connexion fermée");
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending p = batch.get(i);
+                    if (i < written) {
+                        p.done().complete(null);
+                    } else if (p.packet() != null) {
+                        // Arrivé après la demande de fermeture : jamais écrit
+                        p.done().completeExceptionally(closedCause);
+                    }
+                }
+                batch.clear();
+                if (stop) {
+                    failRemaining(closedCause);
+                    if (afterDrain != null)
+                        afterDrain.run();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            closed = true;
+            batch.forEach(p -> fail(p, e));
+            failRemaining(e);
+        } catch (InterruptedException e) {
+            closed = true;
+            IOException cause = new IOException("Envoi interrompu");
+            batch.forEach(p -> fail(p, cause));
+            failRemaining(cause);
+        }
+    }
+
+    private void failRemaining(IOException cause) {
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            fail(p, cause);
+        }
+    }
+
+    private static void fail(Pending p, IOException cause) {
+        if (p.done() != null)
+            p.done().completeExceptionally(cause);
+        else if (p.afterDrain() != null)
+            p.afterDrain().run();
+    }
+
+    /** Nombre de paquets actuellement en attente d'écriture. */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /** Profondeur maximale observée de la file depuis la création. */
+    public int maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /** Nombre de paquets effectivement flushés sur le socket. */
+    public long packetsWritten() {
+        return packetsWritten.get();
+    }
+
+    /** Nombre de flush (un par lot) : packetsWritten / flushes = taille moyenne des lots. */
+    public long flushes() {
+        return flushes.get();
+    }
+}
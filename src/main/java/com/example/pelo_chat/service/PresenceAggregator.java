@@ -0,0 +1,105 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.StatusEvent;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Regroupe les changements de statut (STATUS_UPDATE) reçus pendant une fenêtre de temps
+ * et n'applique que le dernier statut de chaque utilisateur, en un seul lot.
+ *
+ * Après une panne, des milliers d'utilisateurs passent ONLINE / OFFLINE en quelques
+ * secondes : sans regroupement, chaque oscillation repeint un point de statut. Ici un
+ * utilisateur qui change dix fois de statut dans la fenêtre n'est traité qu'une fois,
+ * et l'affichage est rafraîchi au plus une fois par fenêtre.
+ *
+ * {@link #offer} peut être appelé depuis n'importe quel thread ; le lot est appliqué
+ * sur {@code applyExecutor} (thread JavaFX par défaut).
+ *
+ * Mesures (voir Metrics) : presence.received (statuts reçus), presence.coalesced (après
+ * regroupement), presence.applied (ayant modifié un contact), presence.batches (lots).
+ */
+public class PresenceAggregator {
+
+    public static final long DEFAULT_WINDOW_MS = 100;
+
+    private static final LongAdder RECEIVED = Metrics.CLIENT.counter("presence.received");
+    private static final LongAdder COALESCED = Metrics.CLIENT.counter("presence.coalesced");
+    private static final LongAdder APPLIED = Metrics.CLIENT.counter("presence.applied");
+    private static final LongAdder BATCHES = Metrics.CLIENT.counter("presence.batches");
+
+    private final Predicate<StatusEvent> applier;
+    private final Executor flushExecutor;
+
+    // Dernier statut par utilisateur (clé en minuscules), dans l'ordre d'arrivée
+    private Map<String, StatusEvent> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param applier applique un statut ; renvoie true s'il a réellement changé
+     *                quelque chose (contact connu, statut différent)
+     */
+    public PresenceAggregator(Predicate<StatusEvent> applier) {
+        this(applier, DEFAULT_WINDOW_MS, Platform::runLater);
+    }
+
+    public PresenceAggregator(Predicate<StatusEvent> applier, long windowMs, Executor applyExecutor) {
+        this.applier = applier;
+        this.flushExecutor = CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS, applyExecutor);
+    }
+
+    /** Enregistre un changement de statut ; remplace celui encore en attente pour cet utilisateur. */
+    public void offer(StatusEvent event) {
+        if (event == null || event.username() == null)
+            return;
+        RECEIVED.increment();
+        synchronized (this) {
+            pending.put(event.username().toLowerCase(Locale.ROOT), event);
+            if (flushScheduled)
+                return;
+            flushScheduled = true;
+        }
+        // Premier changement de la fenêtre : le lot partira à sa fin
+        flushExecutor.execute(this::flush);
+    }
+
+    /**
+     * Oublie les changements en attente, par exemple quand une liste complète des
+     * utilisateurs (plus récente qu'eux) vient d'être appliquée.
+     */
+    public synchronized void discardPending() {
+        pending.clear();
+    }
+
+    /** Applique tout de suite le lot en attente (à appeler sur le thread d'application). */
+    public void flush() {
+        Map<String, StatusEvent> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty())
+                return;
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        List<StatusEvent> events = new ArrayList<>(batch.values());
+        int changed = 0;
+        for (StatusEvent e : events) {
+            if (applier.test(e))
+                changed++;
+        }
+        BATCHES.increment();
+        COALESCED.add(events.size());
+        APPLIED.add(changed);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.pelo_chat.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planifie les tentatives de reconnexion avec un backoff exponentiel à gigue complète :
+ * la n-ième tentative attend un délai tiré uniformément dans [0, min(max, base × 2^n)].
+ *
+ * La gigue étale les reconnexions quand un redémarrage du serveur déconnecte des
+ * milliers de clients en même temps (pas de vague synchronisée toutes les 2^n s).
+ */
+public class ReconnectSupervisor {
+
+    public static final long DEFAULT_BASE_DELAY_MS = 500;
+    public static final long DEFAULT_MAX_DELAY_MS = 30_000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pelo-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int attempts;
+    private ScheduledFuture<?> pending;
+
+    public ReconnectSupervisor() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public ReconnectSupervisor(long baseDelayMs, long maxDelayMs) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Planifie la prochaine tentative (remplace celle éventuellement en attente).
+     *
+     * @return délai choisi, en millisecondes
+     */
+    public synchronized long schedule(Runnable attempt) {
+        if (pending != null)
+            pending.cancel(false);
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempts, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        attempts++;
+        pending = scheduler.schedule(attempt, delay, TimeUnit.MILLISECONDS);
+        return delay;
+    }
+
+    /** Reconnexion réussie : la prochaine coupure repart du délai de base. */
+    public synchronized void reset() {
+        attempts = 0;
+        pending = null;
+    }
+
+    /** Annule la tentative en attente (déconnexion volontaire). */
+    public synchronized void cancel() {
+        if (pending != null)
+            pending.cancel(false);
+        pending = null;
+        attempts = 0;
+    }
+
+    /** Nombre de tentatives depuis la dernière connexion réussie. */
+    public synchronized int attempts() {
+        return attempts;
+    }
+}
@@ -1,80 +1,348 @@
 package com.example.pelo_chat.service;
 
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.example.pelo_chat.utils.LatencyHistogram;
 import com.example.pelo_chat.utils.Packet;
-import com.google.gson.Gson;
+import com.example.pelo_chat.utils.PacketCodec;
 import javafx.application.Platform;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Couche réseau de PELO Chat.
  *
- * Gère la connexion TCP au serveur Java (localhost:8080).
- * Le protocole est simple : chaque paquet = une ligne JSON (terminée par \n).
- * Un thread d'écoute tourne en arrière-plan (daemon) et appelle le callback
- * à chaque paquet reçu. Le callback est toujours exécuté sur le thread JavaFX
- * (Platform.runLater) pour pouvoir modifier l'UI directement.
+ * Gère la connexion TCP au serveur Java (localhost:8080 par défaut, -Dpelo.host et
+ * -Dpelo.port pour un autre serveur, serveur de test compris) à travers un {@link Transport}
+ * (socket bloquant par défaut, NIO avec -Dpelo.transport=nio).
+ * Par défaut, chaque paquet = une ligne JSON (terminée par \n) ; l'encodage binaire
+ * compact est choisi avec -Dpelo.codec=binary ou {@link #setCodec(String)}.
+ * Le thread réseau décode entièrement chaque paquet reçu (voir {@link PacketDecoder})
+ * et le dépose dans une file. La file est vidée sur le thread JavaFX par une seule
+ * tâche Platform.runLater par rafale : les callbacks peuvent donc modifier l'UI
+ * directement, et une rafale de milliers de paquets ne coûte qu'un passage sur le
+ * thread JavaFX.
+ *
+ * Les envois passent par la file bornée du transport (un seul flush ou write par lot
+ * de paquets) : send() ne bloque donc jamais l'appelant.
+ *
+ * Si la connexion tombe après un LOGIN accepté, un {@link ReconnectSupervisor} retente
+ * avec un backoff exponentiel à gigue, ré-authentifie la session et ne redemande que
+ * les changements survenus pendant la coupure. Les callbacks restent en place ; ils
+ * reçoivent les paquets locaux RECONNECTING (content = délai en ms) puis RECONNECTED.
+ *
+ * Deux modes de livraison :
+ *  - paquet par paquet : {@link #setOnPacketReceived(Consumer)}
+ *  - par lot : {@link #setOnPacketsReceived(Consumer)} reçoit toute la rafale d'un coup,
+ *    ce qui permet d'appliquer les changements avec une seule passe de layout
  */
 public class SocketService {
 
-    private static final String HOST = "localhost";
-    private static final int PORT = 8080;
+    /** Adresse du serveur (-Dpelo.host, -Dpelo.port). */
+    private static final String HOST = System.getProperty("pelo.host", "localhost");
+    private static final int PORT = Integer.getInteger("pelo.port", 8080);
+
+    /** Transport utilisé par défaut : "socket" (bloquant, historique) ou "nio". */
+    private static final String TRANSPORT = System.getProperty("pelo.transport", "socket");
+
+    /** Codec utilisé par défaut : "json" (protocole historique) ou "binary". */
+    private static final String CODEC = System.getProperty("pelo.codec", "json");
+
+    /** Compression DEFLATE des connexions (-Dpelo.compress=true), désactivée par défaut. */
+    private static final boolean COMPRESS = Boolean.getBoolean("pelo.compress");
 
-    private Socket socket;
-    private PrintWriter writer;
-    private BufferedReader reader;
-    private final Gson gson = new Gson();
+    /** Taille max d'un paquet reçu (-Dpelo.maxFrameBytes) ; au-delà, la connexion est coupée. */
+    private static final int MAX_FRAME_BYTES = Integer.getInteger("pelo.maxFrameBytes", PacketCodec.MAX_FRAME_BYTES);
+
+    /** Nombre max de paquets livrés par passage sur le thread JavaFX. */
+    private static final int MAX_BATCH = 2048;
+
+    /** Délai laissé au transport pour vider sa file avant la fermeture forcée. */
+    private static final long DISCONNECT_GRACE_MS = 2000;
+
+    // Mesures (voir Metrics) : paquets par action, attente de la livraison sur le thread JavaFX
+    private static final LongAdder[] PACKETS_IN = Metrics.CLIENT.counters("packets.in", Action.class);
+    private static final LongAdder[] PACKETS_OUT = Metrics.CLIENT.counters("packets.out", Action.class);
+    private static final LatencyHistogram FX_LAG = Metrics.CLIENT.histogram("fx.lag");
+    // Compression (ajoutées à la fin de chaque connexion) : ratio = raw / wire, coût = nanos
+    private static final LongAdder DEFLATE_RAW = Metrics.CLIENT.counter("compress.out.raw");
+    private static final LongAdder DEFLATE_WIRE = Metrics.CLIENT.counter("compress.out.wire");
+    private static final LongAdder DEFLATE_NANOS = Metrics.CLIENT.counter("compress.out.nanos");
+    private static final LongAdder INFLATE_WIRE = Metrics.CLIENT.counter("compress.in.wire");
+    private static final LongAdder INFLATE_RAW = Metrics.CLIENT.counter("compress.in.raw");
+    private static final LongAdder INFLATE_NANOS = Metrics.CLIENT.counter("compress.in.nanos");
+
+    private final PacketDecoder decoder = new PacketDecoder(JsonAdapters.GSON);
+    private final Supplier<Transport> transportFactory;
+    private final Executor deliveryExecutor;
+    private volatile Transport transport;
+    private volatile String codec = CODEC;
+    private volatile boolean compress = COMPRESS;
+    private volatile ConnectionCompression compression; // mesures de la connexion courante
 
     // Callback appelé à chaque paquet reçu (mis à jour par le Controller)
     private Consumer<Packet> onPacketReceived;
-    private boolean running = false;
+    // Callback par lot : prioritaire sur onPacketReceived s'il est défini
+    private Consumer<List<Packet>> onPacketsReceived;
+
+    // Session à reprendre après une coupure (renseignée par login, validée par ACK)
+    private final ReconnectSupervisor supervisor = new ReconnectSupervisor();
+    private volatile String sessionUser;
+    private volatile String sessionPassword;
+    private volatile boolean sessionEstablished; // ACK reçu : reconnexion automatique active
+    private volatile boolean resuming;           // LOGIN de reprise envoyé, réponse attendue
+    private volatile long disconnectedAt;        // début de la coupure (epoch ms)
+
+    // Paquets reçus en attente de livraison sur le thread JavaFX
+    private final Queue<Packet> inbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile long drainScheduledAt; // System.nanoTime de la programmation en attente
+
+    /** Service dont le transport est choisi par la propriété système pelo.transport. */
+    public SocketService() {
+        this(Platform::runLater);
+    }
+
+    /**
+     * Service livrant les paquets via {@code deliveryExecutor} au lieu du thread JavaFX
+     * (ex. {@code Runnable::run} pour un banc de test sans interface).
+     */
+    public SocketService(Executor deliveryExecutor) {
+        this.transportFactory = this::newTransport;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /** Service utilisant un transport fourni (une instance neuve par connexion). */
+    public SocketService(Supplier<Transport> transportFactory) {
+        this(transportFactory, Platform::runLater);
+    }
+
+    public SocketService(Supplier<Transport> transportFactory, Executor deliveryExecutor) {
+        this.transportFactory = transportFactory;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /** Transport par défaut, avec le codec et la compression choisis pour cette connexion. */
+    private Transport newTransport() {
+        PacketCodec c = PacketCodec.forName(codec, JsonAdapters.GSON, MAX_FRAME_BYTES);
+        ConnectionCompression z = compress ? new ConnectionCompression() : null;
+        publishCompression(compression); // connexion précédente (reconnexion)
+        compression = z;
+        return "nio".equalsIgnoreCase(TRANSPORT)
+                ? new NioTransport(c, decoder, PacketWriter.DEFAULT_CAPACITY, z)
+                : new SocketTransport(c, decoder, z);
+    }
+
+    /** Ajoute les mesures d'une connexion terminée aux compteurs compress.* de Metrics. */
+    private static void publishCompression(ConnectionCompression z) {
+        if (z == null)
+            return;
+        DEFLATE_RAW.add(z.rawBytesSent());
+        DEFLATE_WIRE.add(z.compressedBytesSent());
+        DEFLATE_NANOS.add(z.deflateNanos());
+        INFLATE_WIRE.add(z.compressedBytesReceived());
+        INFLATE_RAW.add(z.rawBytesReceived());
+        INFLATE_NANOS.add(z.inflateNanos());
+    }
 
     /**
-     * Ouvre la connexion TCP et démarre le thread d'écoute.
+     * Choisit le codec ("json" ou "binary") des prochaines connexions. Sans effet si le
+     * transport est fourni au constructeur (il porte alors son propre codec).
+     */
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Active la compression DEFLATE des prochaines connexions (annoncée au serveur dans
+     * le HELLO). Utile sur les liens lents : un USERS_LIST de 20 000 comptes passe
+     * d'environ 2 Mo à 150 Ko. Même limite que {@link #setCodec(String)}.
+     */
+    public void setCompression(boolean compress) {
+        this.compress = compress;
+    }
+
+    /** Mesures de compression (ratio, temps CPU) de la connexion courante, ou null. */
+    public ConnectionCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Ouvre la connexion TCP et démarre la réception.
      * Si une connexion existante est ouverte, elle est d'abord fermée.
      *
+     * Avec le transport NIO, l'appel rend la main immédiatement : un serveur injoignable
+     * est signalé par un paquet ERROR "Impossible de joindre le serveur".
+     *
      * @param callback fonction appelée à chaque paquet reçu (sur le thread JavaFX)
      */
     public void connect(Consumer<Packet> callback) throws IOException {
-        running = false; // Stoppe l'éventuel listener existant
-        if (socket != null && !socket.isClosed()) {
-            socket.close();
+        supervisor.cancel();
+        sessionEstablished = false;
+        resuming = false;
+        Transport previous = transport;
+        if (previous != null) {
+            transport = null; // ses derniers événements seront ignorés
+            previous.close();
         }
         this.onPacketReceived = callback;
-        socket = new Socket(HOST, PORT);
-        // true = auto-flush : chaque println() envoie immédiatement sur le réseau
-        writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
-        reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-
-        running = true;
-        Thread listener = new Thread(() -> {
-            try {
-                String line;
-                // Boucle bloquante : readLine() attend la prochaine ligne JSON du serveur
-                while (running && (line = reader.readLine()) != null) {
-                    Packet packet = gson.fromJson(line, Packet.class);
-                    if (onPacketReceived != null) {
-                        // Toujours repasser sur le thread JavaFX avant de toucher l'UI
-                        Platform.runLater(() -> onPacketReceived.accept(packet));
-                    }
-                }
-            } catch (IOException e) {
-                // Connexion perdue (serveur arrêté, réseau coupé, etc.)
-                if (running && onPacketReceived != null) {
-                    Platform.runLater(() -> onPacketReceived.accept(
-                            new Packet("ERROR", "server", null, "Connexion perdue")));
-                }
+        this.onPacketsReceived = null;
+        inbound.clear();
+        openTransport();
+    }
+
+    /** Crée un transport neuf et l'ouvre ; ses événements ne comptent que s'il est courant. */
+    private void openTransport() throws IOException {
+        Transport t = transportFactory.get();
+        transport = t;
+        t.open(HOST, PORT, new Transport.Listener() {
+            @Override
+            public void onPacket(Packet packet) {
+                if (transport == t)
+                    onTransportPacket(t, packet);
+            }
+
+            @Override
+            public void onClosed(IOException cause, boolean connected) {
+                // cause == null : fermeture demandée (disconnect), rien à signaler
+                if (cause == null)
+                    return;
+                // Connexion perdue : libère ce qui reste du transport (thread d'écriture, zlib)
+                t.close();
+                if (transport == t)
+                    onTransportLost(connected);
             }
         });
-        // Daemon : ce thread ne bloque pas l'arrêt de la JVM quand l'appli se ferme
-        listener.setDaemon(true);
-        listener.start();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // RECONNEXION AUTOMATIQUE
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Paquet reçu sur le thread réseau : interception de la réponse au LOGIN de reprise.
+     * Seul un ACK ou un ERROR y répond ; les paquets poussés par le serveur avant elle
+     * (STATUS_UPDATE, MESSAGE_RECEIVED…) sont livrés normalement.
+     */
+    private void onTransportPacket(Transport t, Packet packet) {
+        Action action = packet.actionType();
+        PACKETS_IN[action.ordinal()].increment();
+        if (resuming && (action == Action.ACK || action == Action.ERROR)) {
+            resuming = false;
+            if (action == Action.ACK) {
+                supervisor.reset();
+                // Ne demander que ce qui a changé pendant la coupure (voir Packet : GET_USERS)
+                transmit(t, new Packet("GET_USERS", sessionUser, null, "since=" + disconnectedAt));
+                deliver(new Packet("RECONNECTED", "client", null, null));
+            } else {
+                // Identifiants refusés (compte supprimé, mot de passe changé…) : abandon
+                sessionEstablished = false;
+                sessionUser = null;
+                sessionPassword = null;
+                deliver(packet);
+            }
+            return;
+        }
+        if (!sessionEstablished && sessionUser != null && action == Action.ACK) {
+            sessionEstablished = true;
+        }
+        deliver(packet);
+    }
+
+    /** Connexion perdue (ou jamais établie) sans demande de l'utilisateur. */
+    private void onTransportLost(boolean connected) {
+        if (!sessionEstablished) {
+            deliver(new Packet("ERROR", "server", null,
+                    connected ? "Connexion perdue" : "Impossible de joindre le serveur"));
+            return;
+        }
+        if (!resuming && connected)
+            disconnectedAt = System.currentTimeMillis();
+        resuming = false;
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        long delay = supervisor.schedule(this::reconnect);
+        deliver(new Packet("RECONNECTING", "client", null, String.valueOf(delay)));
+    }
+
+    /** Tentative de reconnexion (thread du superviseur) : nouveau transport + LOGIN. */
+    private void reconnect() {
+        if (!sessionEstablished)
+            return;
+        try {
+            resuming = true;
+            openTransport();
+            transmit(transport, new Packet("LOGIN", sessionUser, null, sessionPassword));
+        } catch (IOException e) {
+            resuming = false;
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Met un paquet en file et programme une livraison sur le thread JavaFX
+     * si aucune n'est déjà en attente (une seule tâche runLater par rafale).
+     * Avec un exécuteur synchrone, la livraison a lieu sur le thread réseau.
+     */
+    private void deliver(Packet packet) {
+        if (packet == null)
+            return;
+        inbound.add(packet);
+        if (drainScheduled.compareAndSet(false, true)) {
+            drainScheduledAt = System.nanoTime();
+            deliveryExecutor.execute(this::drainInbound);
+        }
+    }
+
+    /** Vide la file (thread JavaFX) et livre les paquets en un lot. */
+    private void drainInbound() {
+        // Remis à false avant de vider : un paquet arrivé pendant la livraison
+        // reprogrammera forcément une nouvelle tâche.
+        drainScheduled.set(false);
+        FX_LAG.record(System.nanoTime() - drainScheduledAt);
+        List<Packet> batch = new ArrayList<>(Math.min(inbound.size(), MAX_BATCH));
+        Packet packet;
+        while (batch.size() < MAX_BATCH && (packet = inbound.poll()) != null) {
+            batch.add(packet);
+        }
+        if (!inbound.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            // Rafale plus grande qu'un lot : la suite au prochain passage
+            drainScheduledAt = System.nanoTime();
+            deliveryExecutor.execute(this::drainInbound);
+        }
+        if (batch.isEmpty())
+            return;
+
+        Consumer<List<Packet>> batchCallback = onPacketsReceived;
+        Consumer<Packet> callback = onPacketReceived;
+        if (batchCallback != null) {
+            batchCallback.accept(batch);
+        } else if (callback != null) {
+            for (Packet p : batch)
+                callback.accept(p);
+        }
     }
 
     /** Envoie un paquet LOGIN au serveur. */
     public void login(String username, String password) {
+        // Conservés pour ré-authentifier la session après une coupure réseau
+        sessionUser = username;
+        sessionPassword = password;
+        sessionEstablished = false;
         send(new Packet("LOGIN", username, null, password));
     }
 
@@ -88,11 +356,31 @@ public class SocketService {
         send(new Packet("GET_USERS", username, null, null));
     }
 
-    /** Sérialise le paquet en JSON et l'envoie au serveur sur une ligne. */
-    public void send(Packet packet) {
-        if (writer != null) {
-            writer.println(gson.toJson(packet));
+    /**
+     * Met le paquet en file d'envoi (encodé par le codec de la connexion au moment de
+     * l'écriture). Ne bloque jamais, même si le serveur ne lit plus.
+     *
+     * @return promesse complétée une fois le paquet flushé sur le socket (facultative)
+     */
+    public CompletableFuture<Void> send(Packet packet) {
+        Transport t = transport;
+        if (t == null) {
+            return CompletableFuture.failedFuture(new IOException("Non connecté"));
         }
+        return transmit(t, packet);
+    }
+
+    /** Confie le paquet au transport ; compté dans packets.out s'il est accepté en file. */
+    private static CompletableFuture<Void> transmit(Transport t, Packet packet) {
+        CompletableFuture<Void> sent = t.send(packet);
+        if (!sent.isCompletedExceptionally())
+            PACKETS_OUT[packet.actionType().ordinal()].increment();
+        return sent;
+    }
+
+    /** Transport de la connexion courante (profondeur de la file d'envoi…), ou null. */
+    public Transport getTransport() {
+        return transport;
     }
 
     /**
@@ -101,15 +389,40 @@ public class SocketService {
      */
     public void setOnPacketReceived(Consumer<Packet> callback) {
         this.onPacketReceived = callback;
+        this.onPacketsReceived = null;
+    }
+
+    /**
+     * Passe en livraison par lot : le callback reçoit, sur le thread JavaFX, tous les
+     * paquets arrivés depuis le passage précédent (au plus {@value #MAX_BATCH}).
+     */
+    public void setOnPacketsReceived(Consumer<List<Packet>> callback) {
+        this.onPacketsReceived = callback;
     }
 
-    /** Prévient le serveur de la déconnexion, puis ferme le socket. */
+    /**
+     * Prévient le serveur de la déconnexion, puis ferme le socket une fois la file
+     * d'envoi vidée (ou après {@value #DISCONNECT_GRACE_MS} ms si le serveur ne lit plus).
+     */
     public void disconnect() {
-        send(new Packet("LOGOUT", null, null, null));
-        try {
-            if (socket != null)
-                socket.close();
-        } catch (IOException ignored) {
-        }
+        supervisor.cancel();
+        sessionEstablished = false;
+        resuming = false;
+        sessionUser = null;
+        sessionPassword = null;
+        // Un lot déjà programmé ne doit plus rien livrer au contrôleur qui se déconnecte
+        onPacketReceived = null;
+        onPacketsReceived = null;
+        inbound.clear();
+        Transport t = transport;
+        if (t == null)
+            return;
+        publishCompression(compression);
+        compression = null;
+        // Détaché avant le LOGOUT : la fermeture par le serveur qui y répond n'est pas une coupure
+        transport = null;
+        transmit(t, new Packet("LOGOUT", null, null, null));
+        t.shutdown(null);
+        CompletableFuture.delayedExecutor(DISCONNECT_GRACE_MS, TimeUnit.MILLISECONDS).execute(t::close);
     }
 }
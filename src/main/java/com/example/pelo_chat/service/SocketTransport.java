@@ -0,0 +1,195 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.Packet;
+import com.example.pelo_chat.utils.PacketCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport bloquant historique : un java.net.Socket, un thread d'écoute qui lit une
+ * trame à la fois avec le {@link PacketCodec} de la connexion, et un
+ * {@link PacketWriter} pour les envois.
+ * L'ouverture est synchrone (à éviter sur le thread JavaFX si le serveur est lent).
+ */
+public class SocketTransport implements Transport {
+
+    // Octets sur le fil, comptés sous la compression éventuelle (voir Metrics)
+    private static final LongAdder BYTES_IN = Metrics.CLIENT.counter("net.bytes.in");
+    private static final LongAdder BYTES_OUT = Metrics.CLIENT.counter("net.bytes.out");
+
+    private final PacketCodec codec;
+    private final PacketDecoder decoder;
+    private final ConnectionCompression compression;
+
+    private Socket socket;
+    private PacketWriter writer;
+    private volatile boolean running;
+
+    public SocketTransport(PacketCodec codec, PacketDecoder decoder) {
+        this(codec, decoder, null);
+    }
+
+    /** @param compression compression DEFLATE de la connexion, ou null */
+    public SocketTransport(PacketCodec codec, PacketDecoder decoder, ConnectionCompression compression) {
+        this.compression = compression;
+        this.codec = codec;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void open(String host, int port, Listener listener) throws IOException {
+        socket = new Socket(host, port);
+        OutputStream raw = new MeteredOutputStream(socket.getOutputStream());
+        byte[] handshake = PacketCodec.handshake(codec, compression != null);
+        if (handshake != null) {
+            // Annonce du codec, en clair, avant le démarrage du thread d'écriture
+            raw.write(handshake);
+            raw.flush();
+        }
+        InputStream in = new MeteredInputStream(socket.getInputStream());
+        if (compression != null) {
+            raw = compression.wrap(raw);
+            in = compression.wrap(in);
+        }
+        // Flux bufferisé : le PacketWriter ne flush qu'une fois par lot de paquets
+        // (donc un seul SYNC_FLUSH par lot avec la compression)
+        writer = new PacketWriter(new BufferedOutputStream(raw), codec, PacketWriter.DEFAULT_CAPACITY);
+        InputStream input = new BufferedInputStream(in);
+
+        running = true;
+        Thread thread = new Thread(() -> {
+            try {
+                // Boucle bloquante : read() attend la prochaine trame du serveur
+                while (running) {
+                    // Un JSON invalide lève une IOException : le flux est désynchronisé
+                    Packet packet = codec.read(input);
+                    if (packet == null)
+                        break;
+                    // Décodage complet (JSON imbriqué compris) sur ce thread, pas sur le thread JavaFX
+                    decoder.decodePayload(packet);
+                    listener.onPacket(packet);
+                }
+                listener.onClosed(running ? new IOException("Fermée par le serveur") : null, true);
+            } catch (IOException e) {
+                // Connexion perdue (serveur arrêté, réseau coupé, etc.)
+                listener.onClosed(running ? e : null, true);
+            }
+        }, "pelo-listener");
+        // Daemon : ce thread ne bloque pas l'arrêt de la JVM quand l'appli se ferme
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> send(Packet packet) {
+        PacketWriter w = writer;
+        if (w == null)
+            return CompletableFuture.failedFuture(new IOException("Non connecté"));
+        return w.send(packet);
+    }
+
+    @Override
+    public void shutdown(Runnable afterClose) {
+        running = false;
+        if (writer == null) {
+            if (afterClose != null)
+                afterClose.run();
+            return;
+        }
+        writer.shutdown(() -> {
+            closeSocket();
+            if (afterClose != null)
+                afterClose.run();
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (writer != null)
+            writer.shutdown(null);
+        closeSocket();
+        if (compression != null)
+            compression.close(); // ses compteurs restent lisibles pour SocketService
+    }
+
+    private void closeSocket() {
+        try {
+            if (socket != null)
+                socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public int queueDepth() {
+        return writer != null ? writer.queueDepth() : 0;
+    }
+
+    @Override
+    public int maxQueueDepth() {
+        return writer != null ? writer.maxQueueDepth() : 0;
+    }
+
+    @Override
+    public long packetsWritten() {
+        return writer != null ? writer.packetsWritten() : 0;
+    }
+
+    @Override
+    public long flushes() {
+        return writer != null ? writer.flushes() : 0;
+    }
+
+    // ── Comptage des octets du socket ────────────────────
+
+    private static final class MeteredInputStream extends FilterInputStream {
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0)
+                BYTES_IN.increment();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0)
+                BYTES_IN.add(n);
+            return n;
+        }
+    }
+
+    private static final class MeteredOutputStream extends FilterOutputStream {
+        MeteredOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            BYTES_OUT.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            BYTES_OUT.add(len);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.pelo_chat.service;
+
+import com.example.pelo_chat.utils.Packet;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport d'une connexion au serveur : ouverture, lecture des paquets et file d'envoi.
+ *
+ * Implémentations :
+ *  - {@link SocketTransport} : java.net.Socket bloquant + thread d'écoute + PacketWriter
+ *  - {@link NioTransport}    : SocketChannel non bloquant + boucle Selector unique
+ *
+ * Les paquets reçus sont remis au {@link Listener} sur le thread réseau, déjà décodés ;
+ * c'est SocketService qui les fait passer sur le thread JavaFX.
+ */
+public interface Transport {
+
+    /** Réception des événements de la connexion (appelé sur le thread réseau). */
+    interface Listener {
+        /** Un paquet complet a été reçu et décodé. */
+        void onPacket(Packet packet);
+
+        /**
+         * La connexion est terminée.
+         *
+         * @param cause     erreur à l'origine de la fermeture, null si elle a été demandée
+         * @param connected false si la connexion n'a jamais pu être établie
+         */
+        void onClosed(IOException cause, boolean connected);
+    }
+
+    /**
+     * Ouvre la connexion. Selon l'implémentation, l'appel est bloquant (erreur levée
+     * directement) ou non bloquant (erreur signalée par {@link Listener#onClosed}).
+     */
+    void open(String host, int port, Listener listener) throws IOException;
+
+    /** Met un paquet en file d'envoi sans bloquer ; la promesse est complétée une fois écrit. */
+    CompletableFuture<Void> send(Packet packet);
+
+    /** Écrit les paquets déjà en file, ferme la connexion, puis exécute {@code afterClose}. */
+    void shutdown(Runnable afterClose);
+
+    /** Ferme immédiatement la connexion (paquets en attente abandonnés). */
+    void close();
+
+    /** Nombre de paquets en attente d'écriture. */
+    int queueDepth();
+
+    /** Profondeur maximale observée de la file d'envoi. */
+    int maxQueueDepth();
+
+    /** Nombre de paquets écrits sur le socket. */
+    long packetsWritten();
+
+    /** Nombre de lots écrits : packetsWritten / flushes = taille moyenne des lots. */
+    long flushes();
+}
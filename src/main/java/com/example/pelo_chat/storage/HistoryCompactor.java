@@ -0,0 +1,181 @@
+package com.example.pelo_chat.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rétention et compactage de l'historique local.
+ *
+ * Trois limites, chacune désactivée à 0 :
+ *  - âge maximal des messages
+ *  - nombre maximal de messages par pair
+ *  - taille totale maximale de l'historique (tous pairs confondus) : les messages les
+ *    plus anciens sont supprimés d'abord, quel que soit le pair
+ *
+ * {@link #plan} décide combien de messages supprimer par pair en ne lisant que les
+ * en-têtes (horodatage, taille) ; chaque pair est ensuite compacté séparément par
+ * {@link HistoryStore#compact}, qui scelle aussi son journal dans l'archive. Les
+ * journaux qui ont tourné sont scellés même sans limite configurée.
+ */
+public final class HistoryCompactor {
+
+    /** Limites de rétention (0 : pas de limite). */
+    public record Policy(long maxAgeMillis, int maxMessages, long maxBytes) {
+
+        public static final Policy UNLIMITED = new Policy(0, 0, 0);
+
+        /** Lue dans pelo.historyMaxAgeDays, pelo.historyMaxMessages et pelo.historyMaxBytes. */
+        public static Policy fromSystemProperties() {
+            return new Policy(
+                    TimeUnit.DAYS.toMillis(Long.getLong("pelo.historyMaxAgeDays", 0)),
+                    Integer.getInteger("pelo.historyMaxMessages", 0),
+                    Long.getLong("pelo.historyMaxBytes", 0));
+        }
+
+        public boolean unlimited() {
+            return maxAgeMillis <= 0 && maxMessages <= 0 && maxBytes <= 0;
+        }
+    }
+
+    /** En-têtes des messages conservés d'un pair, du plus ancien au plus récent. */
+    private static final class Records {
+        final String peer;
+        final long[] timestamps; // croissants (maximum courant, horloges imparfaites)
+        final long[] bytes;      // bytes[i] : taille cumulée des messages [0, i)
+        int size;
+        int keep;                // index du premier message conservé
+
+        Records(String peer, int capacity) {
+            this.peer = peer;
+            this.timestamps = new long[capacity];
+            this.bytes = new long[capacity + 1];
+        }
+
+        /** Taille des messages conservés si l'on garde ceux d'index >= from. */
+        long keptBytes(int from) {
+            return bytes[size] - bytes[from];
+        }
+
+        /** Index du premier message horodaté >= t. */
+        int firstAtOrAfter(long t) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timestamps[mid] < t)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private final HistoryStore store;
+    private final Policy policy;
+
+    public HistoryCompactor(HistoryStore store, Policy policy) {
+        this.store = store;
+        this.policy = policy;
+    }
+
+    /**
+     * Pairs à compacter et nombre de messages à supprimer pour chacun (0 : journal à
+     * sceller seulement).
+     *
+     * @param now heure de référence pour l'âge des messages (epoch ms)
+     */
+    public Map<String, Integer> plan(long now) throws IOException {
+        Map<String, Integer> plan = new LinkedHashMap<>();
+        List<Records> all = new ArrayList<>();
+        for (String peer : store.peers()) {
+            if (policy.unlimited()) {
+                if (store.needsArchive(peer))
+                    plan.put(peer, 0);
+                continue;
+            }
+            Records r = read(peer);
+            if (policy.maxAgeMillis > 0)
+                r.keep = r.firstAtOrAfter(now - policy.maxAgeMillis);
+            if (policy.maxMessages > 0)
+                r.keep = Math.max(r.keep, r.size - policy.maxMessages);
+            all.add(r);
+        }
+        if (policy.maxBytes > 0)
+            applyTotalLimit(all);
+
+        for (Records r : all) {
+            if (r.keep > 0 || store.needsArchive(r.peer))
+                plan.put(r.peer, r.keep);
+        }
+        return plan;
+    }
+
+    /** Supprime les messages les plus anciens de tous les pairs jusqu'à tenir dans maxBytes. */
+    private void applyTotalLimit(List<Records> all) {
+        long kept = 0;
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (Records r : all) {
+            kept += r.keptBytes(r.keep);
+            if (r.keep < r.size) {
+                oldest = Math.min(oldest, r.timestamps[r.keep]);
+                newest = Math.max(newest, r.timestamps[r.size - 1]);
+            }
+        }
+        if (kept <= policy.maxBytes)
+            return;
+
+        // Plus petite date de coupure t telle que les messages >= t tiennent dans la limite
+        long lo = oldest;
+        long hi = newest + 1;
+        while (lo < hi) {
+            long mid = lo + (hi - lo) / 2;
+            if (keptBytesFrom(all, mid) <= policy.maxBytes)
+                hi = mid;
+            else
+                lo = mid + 1;
+        }
+        for (Records r : all)
+            r.keep = Math.max(r.keep, r.firstAtOrAfter(lo));
+    }
+
+    private static long keptBytesFrom(List<Records> all, long cutoff) {
+        long kept = 0;
+        for (Records r : all)
+            kept += r.keptBytes(Math.max(r.keep, r.firstAtOrAfter(cutoff)));
+        return kept;
+    }
+
+    private Records read(String peer) throws IOException {
+        Records r = new Records(peer, store.count(peer) - store.first(peer));
+        long[] latest = {Long.MIN_VALUE};
+        store.visit(peer, (timestamp, bytes) -> {
+            if (r.size == r.timestamps.length)
+                return; // message ajouté entre le comptage et le parcours
+            latest[0] = Math.max(latest[0], timestamp);
+            r.timestamps[r.size] = latest[0];
+            r.bytes[r.size + 1] = r.bytes[r.size] + bytes;
+            r.size++;
+        });
+        return r;
+    }
+
+    /** Occupation disque de chaque conversation, la plus lourde d'abord. */
+    public List<HistoryStore.Usage> usage() throws IOException {
+        List<HistoryStore.Usage> usage = new ArrayList<>();
+        for (String peer : store.peers())
+            usage.add(store.usage(peer));
+        usage.sort((a, b) -> Long.compare(b.bytes(), a.bytes()));
+        return usage;
+    }
+
+    /** Taille totale des conversations listées. */
+    public static long totalBytes(List<HistoryStore.Usage> usage) {
+        return usage.stream().mapToLong(HistoryStore.Usage::bytes).sum();
+    }
+}
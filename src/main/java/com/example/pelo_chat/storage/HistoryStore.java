@@ -0,0 +1,380 @@
+package com.example.pelo_chat.storage;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.ConversationSummary;
+import com.example.pelo_chat.utils.JsonAdapters;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Historique local des conversations d'un utilisateur (~/.pelo_chat/{user}/messages/).
+ *
+ * Chaque pair dispose de son propre dossier {peer}/ contenant :
+ *  - une archive {@link MessageArchive} (archive.pma, optionnelle) : messages anciens,
+ *    en lecture seule, projetés en mémoire
+ *  - un {@link MessageLog} : messages récents, en ajout seul
+ * Les rangs sont continus : [B, B + A) dans l'archive, puis le journal. B est le nombre
+ * de messages supprimés par la rétention ({@link HistoryCompactor}) : ni l'archivage
+ * ni la rétention ne changent le rang d'un message conservé.
+ *
+ * Au plus {@link #MAX_OPEN} conversations restent ouvertes (LRU) : chacune tient
+ * plusieurs descripteurs de fichiers (segment, index, archive), et un utilisateur peut
+ * avoir des centaines de pairs. Une conversation évincée est fermée puis rouverte au
+ * prochain accès.
+ *
+ * Les anciens fichiers {peer}.json, réécrits intégralement à chaque message, sont
+ * migrés une seule fois à l'ouverture puis renommés en {peer}.json.migrated.
+ */
+public final class HistoryStore implements Closeable {
+
+    private static final String LEGACY_SUFFIX = ".json";
+    private static final String MIGRATED_SUFFIX = ".json.migrated";
+    private static final String MIGRATING_SUFFIX = ".migrating";
+
+    private static final String ARCHIVE_FILE = "archive.pma";
+    private static final String ARCHIVE_TMP = ARCHIVE_FILE + ".tmp";
+    private static final String ARCHIVE_NEW = ARCHIVE_FILE + ".new";
+
+    /** Nombre de conversations gardées ouvertes. */
+    static final int MAX_OPEN = 32;
+
+    /** Occupation disque d'une conversation. */
+    public record Usage(String peer, int messages, long bytes) {
+    }
+
+    /** Reçoit l'horodatage et la taille de chaque message, du plus ancien au plus récent. */
+    interface RecordVisitor {
+        void accept(long timestamp, int bytes);
+    }
+
+    /** Archive (null si aucune) et journal d'un pair. */
+    private static final class Conversation {
+        MessageArchive archive;
+        MessageLog log;
+
+        /** Rang du plus ancien message conservé. */
+        int first() {
+            return archive != null ? archive.base() : 0;
+        }
+
+        /** Rang du premier message du journal. */
+        int split() {
+            return archive != null ? archive.base() + archive.size() : 0;
+        }
+
+        int end() {
+            return split() + log.size();
+        }
+
+        void close() throws IOException {
+            try {
+                log.close();
+            } finally {
+                if (archive != null)
+                    archive.close();
+            }
+        }
+    }
+
+    private final Path root;
+    private final Map<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Conversation> eldest) {
+            if (size() <= MAX_OPEN)
+                return false;
+            try {
+                eldest.getValue().close();
+            } catch (IOException e) {
+                System.err.println("Fermeture de l'historique de " + eldest.getKey() + " impossible : " + e.getMessage());
+            }
+            return true;
+        }
+    };
+
+    public HistoryStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+        migrateLegacyFiles();
+    }
+
+    /** Pairs ayant un historique sur disque. */
+    public synchronized Set<String> peers() throws IOException {
+        Set<String> peers = new TreeSet<>(conversations.keySet());
+        try (var stream = Files.list(root)) {
+            stream.filter(Files::isDirectory)
+                    .map(p -> p.getFileName().toString())
+                    .filter(name -> !name.endsWith(MIGRATING_SUFFIX))
+                    .forEach(peers::add);
+        }
+        return peers;
+    }
+
+    /**
+     * Ajoute un message à la conversation avec {@code peer} (coût constant).
+     *
+     * @return rang du message dans la conversation
+     */
+    public synchronized int append(String peer, ChatMessage msg) throws IOException {
+        Conversation c = conversation(peer);
+        return c.split() + c.log.append(msg);
+    }
+
+    /** Lit toute la conversation avec {@code peer} (vide, sans rien créer, si elle n'existe pas). */
+    public synchronized List<ChatMessage> readAll(String peer) throws IOException {
+        if (!exists(peer))
+            return new ArrayList<>();
+        return read(peer, first(peer), count(peer));
+    }
+
+    /**
+     * Résumé de la conversation avec {@code peer} : nombre de messages et dernier
+     * message (null si la rétention les a tous supprimés), lus dans l'index sans
+     * parcourir l'historique.
+     */
+    public synchronized ConversationSummary summary(String peer) throws IOException {
+        if (!exists(peer))
+            return new ConversationSummary(peer, 0, null);
+        Conversation c = conversation(peer);
+        ChatMessage last = c.log.size() > 0 ? c.log.last()
+                : c.archive != null && c.archive.size() > 0 ? c.archive.get(c.archive.size() - 1) : null;
+        return new ConversationSummary(peer, c.end(), last);
+    }
+
+    private boolean exists(String peer) {
+        return conversations.containsKey(peer) || Files.isDirectory(root.resolve(peer));
+    }
+
+    /**
+     * Lit les messages de rang [from, to) de la conversation avec {@code peer}. Seuls
+     * ces messages sont décodés, qu'ils soient dans l'archive ou dans le journal.
+     *
+     * @throws IndexOutOfBoundsException si la plage commence avant {@link #first}
+     */
+    public synchronized List<ChatMessage> read(String peer, int from, int to) throws IOException {
+        if (!exists(peer) && from == to)
+            return new ArrayList<>();
+        Conversation c = conversation(peer);
+        int base = c.first();
+        int split = c.split();
+        if (from < base)
+            throw new IndexOutOfBoundsException(from + " : messages supprimés avant le rang " + base);
+        if (from >= split)
+            return c.log.read(from - split, to - split);
+        if (to <= split)
+            return c.archive.read(from - base, to - base);
+        List<ChatMessage> out = c.archive.read(from - base, split - base);
+        out.addAll(c.log.read(0, to - split));
+        return out;
+    }
+
+    /** Rang du plus ancien message encore conservé avec {@code peer}. */
+    public synchronized int first(String peer) throws IOException {
+        return exists(peer) ? conversation(peer).first() : 0;
+    }
+
+    /**
+     * Nombre de messages échangés avec {@code peer}, supprimés compris : c'est aussi le
+     * rang du prochain message.
+     */
+    public synchronized int count(String peer) throws IOException {
+        return exists(peer) ? conversation(peer).end() : 0;
+    }
+
+    /** Messages conservés et taille sur disque (archive et journal) de la conversation. */
+    public synchronized Usage usage(String peer) throws IOException {
+        if (!exists(peer))
+            return new Usage(peer, 0, 0);
+        Conversation c = conversation(peer);
+        long bytes = 0;
+        try (var stream = Files.list(root.resolve(peer))) {
+            for (Path p : (Iterable<Path>) stream::iterator)
+                bytes += Files.size(p);
+        }
+        return new Usage(peer, c.end() - c.first(), bytes);
+    }
+
+    /** Parcourt les messages conservés sans les décoder (horodatage et taille seulement). */
+    synchronized void visit(String peer, RecordVisitor visitor) throws IOException {
+        if (!exists(peer))
+            return;
+        Conversation c = conversation(peer);
+        if (c.archive != null) {
+            for (int i = 0; i < c.archive.size(); i++)
+                visitor.accept(c.archive.timestamp(i), c.archive.recordBytes(i));
+        }
+        c.log.scan(0, c.log.size(), (chunk, records) -> {
+            int p = chunk.position();
+            for (int k = 0; k < records; k++) {
+                int length = chunk.getInt(p);
+                visitor.accept(chunk.getLong(p + 8), MessageLog.HEADER_BYTES + length + MessageLog.ENTRY_BYTES);
+                p += MessageLog.HEADER_BYTES + length;
+            }
+        });
+    }
+
+    private Conversation conversation(String peer) throws IOException {
+        Conversation c = conversations.get(peer);
+        if (c == null) {
+            Path dir = root.resolve(peer);
+            Path archive = recoverArchive(dir);
+            c = new Conversation();
+            c.log = MessageLog.open(dir);
+            try {
+                c.archive = archive != null ? MessageArchive.open(archive) : null;
+            } catch (IOException e) {
+                c.log.close();
+                throw e;
+            }
+            conversations.put(peer, c);
+        }
+        return c;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ARCHIVAGE ET RÉTENTION
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Vrai si le journal de {@code peer} a déjà tourné : ses segments pleins ne seront
+     * plus modifiés et peuvent rejoindre l'archive.
+     */
+    public synchronized boolean needsArchive(String peer) throws IOException {
+        return exists(peer) && conversation(peer).log.segmentCount() > 1;
+    }
+
+    /** Scelle le journal de {@code peer} dans son archive, sans rien supprimer. */
+    public synchronized void archive(String peer) throws IOException {
+        compact(peer, 0);
+    }
+
+    /**
+     * Réécrit l'archive de {@code peer} avec l'ancienne archive suivie du journal, moins
+     * les {@code drop} plus anciens messages ; le journal repart vide. Les rangs des
+     * messages conservés ne changent pas.
+     *
+     * Étapes, chacune reprise au prochain lancement en cas de crash :
+     *  1. écriture complète de archive.pma.tmp (supprimé à l'ouverture s'il traîne)
+     *  2. renommage en archive.pma.new : à partir d'ici le journal est redondant
+     *  3. suppression du journal
+     *  4. renommage de archive.pma.new en archive.pma
+     */
+    public synchronized void compact(String peer, int drop) throws IOException {
+        if (!exists(peer))
+            return;
+        Conversation c = conversation(peer);
+        if (c.log.size() == 0 && drop <= 0)
+            return;
+        Path dir = root.resolve(peer);
+        Path tmp = dir.resolve(ARCHIVE_TMP);
+        Path next = dir.resolve(ARCHIVE_NEW);
+
+        MessageArchive.write(tmp, c.archive, c.log, Math.max(0, drop));
+        Files.move(tmp, next, StandardCopyOption.ATOMIC_MOVE);
+
+        // Étapes 3 et 4 : celles de la reprise après crash, faites à la réouverture
+        conversations.remove(peer);
+        c.close();
+        conversation(peer);
+    }
+
+    /**
+     * Termine un archivage interrompu (journal pas encore ouvert) et retourne le fichier
+     * d'archive à ouvrir, ou null si le pair n'en a pas.
+     */
+    private static Path recoverArchive(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve(ARCHIVE_TMP));
+        Path next = dir.resolve(ARCHIVE_NEW);
+        Path file = dir.resolve(ARCHIVE_FILE);
+        if (Files.exists(next)) {
+            MessageLog.deleteFiles(dir);
+            try {
+                Files.move(next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // Ancienne archive encore projetée (Windows) : la nouvelle est lue sous son nom
+                // provisoire, le renommage sera refait au prochain lancement
+                System.err.println("Renommage de l'archive reporté pour " + dir + " : " + e.getMessage());
+                file = next;
+            }
+        }
+        return Files.exists(file) ? file : null;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // MIGRATION DES FICHIERS JSON
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Convertit chaque {peer}.json en journal. La conversion est faite dans un dossier
+     * temporaire renommé à la fin : un crash en cours de migration la fait simplement
+     * recommencer au prochain lancement.
+     */
+    private void migrateLegacyFiles() throws IOException {
+        List<Path> legacy = new ArrayList<>();
+        try (var stream = Files.list(root)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(LEGACY_SUFFIX)).forEach(legacy::add);
+        }
+        Type listType = new TypeToken<List<ChatMessage>>() {
+        }.getType();
+
+        for (Path file : legacy) {
+            String name = file.getFileName().toString();
+            String peer = name.substring(0, name.length() - LEGACY_SUFFIX.length());
+            Path target = root.resolve(peer);
+            Path migrated = root.resolve(peer + MIGRATED_SUFFIX);
+            try {
+                if (!Files.exists(target)) {
+                    Path tmp = root.resolve(peer + MIGRATING_SUFFIX);
+                    deleteRecursively(tmp);
+                    List<ChatMessage> msgs = JsonAdapters.GSON.fromJson(Files.readString(file), listType);
+                    long timestamp = Files.getLastModifiedTime(file).toMillis();
+                    try (MessageLog log = MessageLog.open(tmp)) {
+                        if (msgs != null) {
+                            for (ChatMessage msg : msgs)
+                                log.append(msg, timestamp);
+                        }
+                    }
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.move(file, migrated, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Migration de l'historique échouée pour " + peer + " : " + e.getMessage());
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir))
+            return;
+        try (var stream = Files.walk(dir)) {
+            for (Path p : stream.sorted((a, b) -> b.compareTo(a)).toList())
+                Files.delete(p);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (Conversation c : conversations.values()) {
+            try {
+                c.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        conversations.clear();
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.pelo_chat.storage;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.utils.JsonAdapters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Archive en lecture seule d'une conversation ancienne, projetée en mémoire (mmap).
+ *
+ * Disposition du fichier :
+ * <pre>
+ *   enregistrements   mêmes enregistrements que {@link MessageLog} : [int longueur][int crc32][long horodatage][payload JSON]
+ *   offsets           un long par message : position de son enregistrement
+ *   pied (24 octets)  [long position des offsets][int nombre de messages][int rang de base][long MAGIC]
+ * </pre>
+ * Le rang de base est le rang dans la conversation du premier message archivé : il
+ * vaut le nombre de messages déjà supprimés par la rétention (voir {@link HistoryCompactor}),
+ * ce qui garde les rangs des messages restants inchangés.
+ *
+ * Le message de rang i est lu directement à sa position : ni le fichier ni la liste
+ * des messages ne sont chargés sur le tas, seules les pages touchées du fichier sont
+ * lues par le système. Les fichiers de plus de 2 Go sont projetés par tranches.
+ */
+public final class MessageArchive implements Closeable {
+
+    private static final long MAGIC = 0x50454C4F41524331L; // "PELOARC1"
+    private static final int FOOTER_BYTES = 24;
+
+    // Tranches de projection : chacune déborde de OVERLAP sur la suivante, si bien qu'un
+    // enregistrement plus petit que OVERLAP tient toujours dans la tranche où il commence
+    private static final long CHUNK = 1L << 30;
+    private static final long OVERLAP = 16L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final MappedByteBuffer offsets;
+    private final int size;
+    private final int base;
+
+    private MessageArchive(FileChannel channel, MappedByteBuffer[] chunks, MappedByteBuffer offsets,
+                           int size, int base) {
+        this.channel = channel;
+        this.chunks = chunks;
+        this.offsets = offsets;
+        this.size = size;
+        this.base = base;
+    }
+
+    /** Ouvre une archive existante (seul le pied est lu). */
+    public static MessageArchive open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = ch.size();
+            if (length < FOOTER_BYTES)
+                throw new IOException("Archive tronquée : " + file);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            MessageLog.readFully(ch, footer, length - FOOTER_BYTES);
+            long offsetsAt = footer.getLong(0);
+            int count = footer.getInt(8);
+            int base = footer.getInt(12);
+            if (footer.getLong(16) != MAGIC || count < 0 || base < 0
+                    || offsetsAt + (long) count * Long.BYTES != length - FOOTER_BYTES)
+                throw new IOException("Archive invalide : " + file);
+
+            int n = (int) ((offsetsAt + CHUNK - 1) / CHUNK);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = i * CHUNK;
+                chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(CHUNK + OVERLAP, offsetsAt - start));
+            }
+            MappedByteBuffer offsets = ch.map(FileChannel.MapMode.READ_ONLY, offsetsAt, (long) count * Long.BYTES);
+            return new MessageArchive(ch, chunks, offsets, count, base);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Nombre de messages archivés. */
+    public int size() {
+        return size;
+    }
+
+    /** Rang dans la conversation du message d'index 0. */
+    public int base() {
+        return base;
+    }
+
+    /** Décode le message de rang {@code index}, et lui seul. */
+    public ChatMessage get(int index) throws IOException {
+        ByteBuffer record = record(index);
+        int length = record.getInt();
+        int expected = record.getInt();
+        byte[] body = new byte[8 + length];
+        record.get(body);
+        if (crc(body) != expected)
+            throw new IOException("Enregistrement d'archive corrompu au rang " + index);
+        return JsonAdapters.CHAT_MESSAGE.fromJson(new String(body, 8, length, StandardCharsets.UTF_8));
+    }
+
+    /** Horodatage (epoch ms) du message de rang {@code index}, sans décoder le message. */
+    public long timestamp(int index) throws IOException {
+        return record(index).getLong(8);
+    }
+
+    /** Taille sur disque du message de rang {@code index} (enregistrement et offset). */
+    public int recordBytes(int index) throws IOException {
+        return MessageLog.HEADER_BYTES + record(index).getInt(0) + Long.BYTES;
+    }
+
+    /** Décode les messages de rang [from, to). */
+    public List<ChatMessage> read(int from, int to) throws IOException {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") hors de [0, " + size + ")");
+        List<ChatMessage> out = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            out.add(get(i));
+        return out;
+    }
+
+    /** Vue sur l'enregistrement de rang {@code index}, positionnée sur son en-tête. */
+    private ByteBuffer record(int index) throws IOException {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index + " hors de [0, " + size + ")");
+        long at = offsets.getLong(index * Long.BYTES);
+        int chunk = (int) (at / CHUNK);
+        ByteBuffer view = chunks[chunk].duplicate();
+        int pos = (int) (at - chunk * CHUNK);
+        int length = view.getInt(pos);
+        if ((long) pos + MessageLog.HEADER_BYTES + length <= view.limit())
+            return view.position(pos).slice();
+        // Enregistrement plus grand que le débordement de la tranche : lecture classique
+        ByteBuffer big = ByteBuffer.allocate(MessageLog.HEADER_BYTES + length);
+        MessageLog.readFully(channel, big, at);
+        return big.flip();
+    }
+
+    /**
+     * Écrit une archive contenant, dans l'ordre, les messages de {@code previous}
+     * (peut être null) puis ceux de {@code log}, sauf les {@code drop} premiers. Les
+     * enregistrements sont recopiés tels quels (horodatage et CRC compris), sans décodage.
+     */
+    static void write(Path target, MessageArchive previous, MessageLog log, int drop) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int archived = previous != null ? previous.size : 0;
+            int total = archived + log.size();
+            drop = Math.min(drop, total);
+            int count = total - drop;
+            long[] positions = new long[count];
+            int[] n = {0};
+            long[] at = {0};
+
+            if (previous != null) {
+                for (int i = drop; i < previous.size; i++) {
+                    ByteBuffer record = previous.record(i);
+                    record.limit(MessageLog.HEADER_BYTES + record.getInt(0));
+                    int bytes = record.remaining();
+                    positions[n[0]++] = at[0];
+                    MessageLog.writeFully(out, record, at[0]);
+                    at[0] += bytes;
+                }
+            }
+            log.scan(Math.max(0, drop - archived), log.size(), (chunk, records) -> {
+                int p = chunk.position();
+                for (int k = 0; k < records; k++) {
+                    positions[n[0]++] = at[0] + (p - chunk.position());
+                    p += MessageLog.HEADER_BYTES + chunk.getInt(p);
+                }
+                int bytes = chunk.remaining();
+                MessageLog.writeFully(out, chunk, at[0]);
+                at[0] += bytes;
+            });
+
+            ByteBuffer table = ByteBuffer.allocate(count * Long.BYTES + FOOTER_BYTES);
+            for (long position : positions)
+                table.putLong(position);
+            int base = (previous != null ? previous.base : 0) + drop;
+            table.putLong(at[0]).putInt(count).putInt(base).putLong(MAGIC).flip();
+            MessageLog.writeFully(out, table, at[0]);
+            out.force(true);
+        }
+    }
+
+    private static int crc(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /** Ferme le fichier ; les tranches projetées sont libérées par le GC. */
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(chunks, null);
+        channel.close();
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.pelo_chat.storage;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.utils.JsonAdapters;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only des messages échangés avec un pair.
+ *
+ * Disposition sur disque (un dossier par pair) :
+ * <pre>
+ *   00000000.seg, 00000001.seg, …   segments append-only (rotation à {@link #SEGMENT_BYTES})
+ *   offsets.idx                     index : une entrée de 12 octets par message
+ * </pre>
+ * Enregistrement d'un segment : [int longueur][int crc32][long horodatage][payload JSON UTF-8].
+ * Entrée d'index : [int numéro de segment][long position dans le segment].
+ *
+ * Ajouter un message écrit donc un enregistrement + 12 octets d'index, quelle que soit
+ * la taille de l'historique. À l'ouverture, la fin du segment actif est revalidée
+ * (CRC) : une écriture interrompue par un crash est tronquée, et les enregistrements
+ * valides absents de l'index y sont ajoutés.
+ */
+public final class MessageLog implements Closeable {
+
+    /** Taille au-delà de laquelle un nouveau segment est ouvert. */
+    static final long SEGMENT_BYTES = 4L * 1024 * 1024;
+
+    static final int HEADER_BYTES = 16;   // longueur + crc + horodatage
+    static final int ENTRY_BYTES = 12;    // segment + position
+
+    private static final String INDEX_FILE = "offsets.idx";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path dir;
+    private final FileChannel index;
+    private final Map<Integer, FileChannel> readers = new HashMap<>();
+
+    private FileChannel active;   // segment en cours d'écriture
+    private int activeSegment;
+    private long activeSize;
+    private int size;             // nombre de messages indexés
+
+    private MessageLog(Path dir, FileChannel index) {
+        this.dir = dir;
+        this.index = index;
+    }
+
+    /**
+     * Ouvre (ou crée) le journal d'un pair et effectue la récupération après crash.
+     */
+    public static MessageLog open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel index = FileChannel.open(dir.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MessageLog log = new MessageLog(dir, index);
+        try {
+            log.recover();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        return log;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ÉCRITURE
+    // ═══════════════════════════════════════════════════════
+
+    /** Ajoute un message horodaté maintenant. Retourne son rang dans la conversation. */
+    public int append(ChatMessage msg) throws IOException {
+        return append(msg, System.currentTimeMillis());
+    }
+
+    /** Ajoute un message avec un horodatage explicite (utilisé par la migration). */
+    public synchronized int append(ChatMessage msg, long timestamp) throws IOException {
+        byte[] payload = JsonAdapters.CHAT_MESSAGE.toJson(msg).getBytes(StandardCharsets.UTF_8);
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (activeSize > 0 && activeSize + recordBytes > SEGMENT_BYTES) {
+            rollSegment();
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(payload.length);
+        record.putInt(0); // crc, renseigné ci-dessous
+        record.putLong(timestamp);
+        record.put(payload);
+        record.putInt(4, crc(record.array(), 8, recordBytes - 8));
+        record.flip();
+
+        long position = activeSize;
+        writeFully(active, record, position);
+        activeSize += recordBytes;
+
+        // L'index est écrit après l'enregistrement : un crash entre les deux est réparé
+        // à l'ouverture suivante en ré-indexant la fin du segment.
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        entry.putInt(activeSegment).putLong(position).flip();
+        writeFully(index, entry, (long) size * ENTRY_BYTES);
+        return size++;
+    }
+
+    private void rollSegment() throws IOException {
+        active.force(false);
+        activeSegment++;
+        active = openSegment(activeSegment);
+        activeSize = 0;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // LECTURE
+    // ═══════════════════════════════════════════════════════
+
+    /** Nombre de messages dans la conversation. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Dernier message de la conversation (un seul enregistrement lu), null si vide. */
+    public synchronized ChatMessage last() throws IOException {
+        return size == 0 ? null : read(size - 1, size).get(0);
+    }
+
+    /** Lit tous les messages de la conversation, du plus ancien au plus récent. */
+    public List<ChatMessage> readAll() throws IOException {
+        return read(0, size());
+    }
+
+    /**
+     * Lit les messages de rang [from, to). Les enregistrements contigus d'un même
+     * segment sont lus en une seule fois.
+     */
+    public synchronized List<ChatMessage> read(int from, int to) throws IOException {
+        List<ChatMessage> out = new ArrayList<>(Math.max(0, to - from));
+        scan(from, to, (chunk, records) -> {
+            for (int k = 0; k < records; k++)
+                out.add(decode(chunk));
+        });
+        return out;
+    }
+
+    /** Reçoit des enregistrements bruts contigus (en-têtes compris), à partir de la position du buffer. */
+    interface RecordChunkConsumer {
+        void accept(ByteBuffer chunk, int records) throws IOException;
+    }
+
+    /**
+     * Parcourt les enregistrements de rang [from, to), un bloc contigu par segment
+     * (utilisé par la lecture et par l'archivage, voir {@link MessageArchive}).
+     */
+    synchronized void scan(int from, int to, RecordChunkConsumer consumer) throws IOException {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") hors de [0, " + size + ")");
+        int n = to - from;
+        if (n == 0)
+            return;
+
+        ByteBuffer entries = ByteBuffer.allocate(n * ENTRY_BYTES);
+        readFully(index, entries, (long) from * ENTRY_BYTES);
+
+        int i = 0;
+        while (i < n) {
+            int segment = entries.getInt(i * ENTRY_BYTES);
+            long start = entries.getLong(i * ENTRY_BYTES + 4);
+            int j = i + 1;
+            while (j < n && entries.getInt(j * ENTRY_BYTES) == segment)
+                j++;
+
+            long end = segmentEnd(segment, from + j);
+            ByteBuffer chunk = ByteBuffer.allocate(Math.toIntExact(end - start));
+            readFully(reader(segment), chunk, start);
+            chunk.flip();
+            consumer.accept(chunk, j - i);
+            i = j;
+        }
+    }
+
+    /** Fin (exclusive) de la plage à lire dans un segment, l'entrée {@code next} exclue. */
+    private long segmentEnd(int segment, int next) throws IOException {
+        if (next < size) {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+            readFully(index, entry, (long) next * ENTRY_BYTES);
+            if (entry.getInt(0) == segment)
+                return entry.getLong(4);
+        }
+        return segment == activeSegment ? activeSize : reader(segment).size();
+    }
+
+    private static ChatMessage decode(ByteBuffer chunk) throws IOException {
+        int start = chunk.position();
+        int length = chunk.getInt();
+        int expected = chunk.getInt();
+        if (length < 0 || chunk.remaining() < 8 + length)
+            throw new IOException("Enregistrement tronqué à la position " + start);
+        int bodyStart = chunk.position();
+        chunk.position(bodyStart + 8 + length);
+        if (crc(chunk.array(), chunk.arrayOffset() + bodyStart, 8 + length) != expected)
+            throw new IOException("Enregistrement corrompu à la position " + start);
+        String json = new String(chunk.array(), chunk.arrayOffset() + bodyStart + 8, length,
+                StandardCharsets.UTF_8);
+        return JsonAdapters.CHAT_MESSAGE.fromJson(json);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // RÉCUPÉRATION
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Remet le journal dans un état cohérent :
+     *  1. tronque l'index à un multiple de 12 octets
+     *  2. retire les entrées qui pointent au-delà de la fin de leur segment
+     *  3. revalide le segment actif depuis la dernière entrée indexée, tronque la
+     *     première écriture incomplète ou corrompue et indexe les enregistrements
+     *     valides manquants
+     */
+    private void recover() throws IOException {
+        activeSegment = lastSegmentNumber();
+        active = openSegment(activeSegment);
+        activeSize = active.size();
+
+        long indexBytes = index.size() - index.size() % ENTRY_BYTES;
+        index.truncate(indexBytes);
+        size = (int) (indexBytes / ENTRY_BYTES);
+
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        long scanFrom = 0;
+        while (size > 0) {
+            entry.clear();
+            readFully(index, entry, (long) (size - 1) * ENTRY_BYTES);
+            int segment = entry.getInt(0);
+            long position = entry.getLong(4);
+            boolean valid = segment < activeSegment
+                    || (segment == activeSegment && position + HEADER_BYTES <= activeSize);
+            if (valid) {
+                if (segment == activeSegment) {
+                    // La dernière entrée indexée est revalidée par le scan ci-dessous
+                    scanFrom = position;
+                    size--;
+                }
+                break;
+            }
+            size--;
+        }
+        index.truncate((long) size * ENTRY_BYTES);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long position = scanFrom;
+        while (position + HEADER_BYTES <= activeSize) {
+            header.clear();
+            readFully(active, header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + HEADER_BYTES + length > activeSize)
+                break;
+            ByteBuffer body = ByteBuffer.allocate(8 + length);
+            readFully(active, body, position + 8);
+            if (crc(body.array(), 0, body.capacity()) != header.getInt(4))
+                break;
+
+            ByteBuffer newEntry = ByteBuffer.allocate(ENTRY_BYTES);
+            newEntry.putInt(activeSegment).putLong(position).flip();
+            writeFully(index, newEntry, (long) size * ENTRY_BYTES);
+            size++;
+            position += HEADER_BYTES + length;
+        }
+        if (position < activeSize) {
+            System.err.println("Journal " + dir.getFileName() + " : fin de segment invalide tronquée ("
+                    + (activeSize - position) + " octets)");
+            active.truncate(position);
+            activeSize = position;
+        }
+    }
+
+    /** Nombre de segments (plus d'un : le journal a déjà tourné au moins une fois). */
+    public synchronized int segmentCount() {
+        return activeSegment + 1;
+    }
+
+    /** Supprime les fichiers d'un journal fermé (segments et index), pas le dossier. */
+    static void deleteFiles(Path dir) throws IOException {
+        try (var stream = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) stream::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX) || name.equals(INDEX_FILE))
+                    Files.delete(p);
+            }
+        }
+    }
+
+    private int lastSegmentNumber() throws IOException {
+        int last = 0;
+        try (var stream = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) stream::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        last = Math.max(last, Integer.parseInt(
+                                name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // UTILITAIRES
+    // ═══════════════════════════════════════════════════════
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private FileChannel reader(int segment) throws IOException {
+        if (segment == activeSegment)
+            return active;
+        FileChannel ch = readers.get(segment);
+        if (ch == null) {
+            ch = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            readers.put(segment, ch);
+        }
+        return ch;
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("%08d%s", number, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, position);
+            if (n < 0)
+                throw new EOFException("Fin de fichier inattendue à la position " + position);
+            position += n;
+        }
+    }
+
+    static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += ch.write(buf, position);
+        }
+    }
+
+    /** Force les écritures sur disque et ferme tous les fichiers. */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel ch : readers.values()) {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        readers.clear();
+        try {
+            if (active != null) {
+                active.force(false);
+                active.close();
+            }
+            index.force(false);
+            index.close();
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.pelo_chat.storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Index inversé de l'historique local, pour la recherche plein texte.
+ *
+ * En mémoire : terme → liste des messages qui le contiennent (triée, un message y
+ * figurant une fois avec son nombre d'occurrences). Un message est identifié par
+ * (pair, rang dans son {@link MessageLog}).
+ *
+ * Sur disque (search.idx, à côté des journaux) : journal append-only des ajouts, rejoué
+ * à l'ouverture. Chaque enregistrement est [int longueur][int crc32][payload] :
+ * <pre>
+ *   1 nom        nouveau pair (numéroté dans l'ordre d'apparition)
+ *   2 terme      nouveau terme (idem)
+ *   3 pair rang longueur n (terme occurrences)×n     message indexé (varints)
+ * </pre>
+ * Indexer un message n'écrit donc que ses termes, quelle que soit la taille de l'index.
+ * Les écritures sont bufferisées et ne sont pas forcées sur disque : après un crash, la
+ * fin incomplète est tronquée à l'ouverture et les messages manquants sont réindexés
+ * depuis les journaux (voir {@link #indexedCount}).
+ *
+ * Les résultats sont classés par BM25 (fréquence du terme dans le message, rareté du
+ * terme, longueur du message), puis du plus récent au plus ancien.
+ */
+public final class SearchIndex implements Closeable {
+
+    public static final String FILE_NAME = "search.idx";
+
+    private static final byte PEER = 1;
+    private static final byte TERM = 2;
+    private static final byte DOC = 3;
+    private static final int HEADER_BYTES = 8;
+
+    // Paramètres BM25 usuels
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Message trouvé : pair, rang dans sa conversation et score (plus haut = plus pertinent). */
+    public record Hit(String peer, int rank, double score) {
+    }
+
+    /** Messages contenant un terme : numéros de message croissants et occurrences. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final FileChannel file;
+    private final ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+
+    private final Map<String, Integer> peerIds = new HashMap<>();
+    private final List<String> peers = new ArrayList<>();
+    private final List<Integer> nextRank = new ArrayList<>();  // par pair : rang du prochain message
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+
+    // Par message indexé (numéro = ordre d'indexation)
+    private int[] docPeer = new int[1024];
+    private int[] docRank = new int[1024];
+    private int[] docLength = new int[1024];
+    private int docCount;
+    private long totalLength;
+
+    private SearchIndex(FileChannel file) {
+        this.file = file;
+    }
+
+    /** Ouvre (ou crée) l'index et le recharge en mémoire. */
+    public static SearchIndex open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SearchIndex index = new SearchIndex(file);
+        try {
+            index.replay();
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        return index;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // INDEXATION
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Rang du prochain message attendu pour {@code peer} : les messages de rang inférieur
+     * sont déjà indexés.
+     */
+    public synchronized int indexedCount(String peer) {
+        Integer id = peerIds.get(peer);
+        return id == null ? 0 : nextRank.get(id);
+    }
+
+    /**
+     * Indexe le message de rang {@code rank} de la conversation avec {@code peer}.
+     * Ignoré s'il est déjà indexé ; les rangs doivent arriver dans l'ordre.
+     *
+     * @return false si le message n'a pas été indexé (déjà présent ou rang inattendu)
+     */
+    public synchronized boolean add(String peer, int rank, String text) throws IOException {
+        if (rank != indexedCount(peer))
+            return false;
+
+        // Occurrences par terme, dans l'ordre d'apparition
+        Map<String, Integer> freqs = new LinkedHashMap<>();
+        List<SearchTokenizer.Token> tokens = SearchTokenizer.tokens(text);
+        for (SearchTokenizer.Token t : tokens)
+            freqs.merge(t.term(), 1, Integer::sum);
+
+        int peerId = peerId(peer, true);
+        int[] terms = new int[freqs.size()];
+        int[] counts = new int[freqs.size()];
+        int n = 0;
+        for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+            terms[n] = termId(e.getKey(), true);
+            counts[n++] = e.getValue();
+        }
+
+        ByteBuffer doc = ByteBuffer.allocate(1 + 5 * (4 + 2 * n));
+        doc.put(DOC);
+        putVarint(doc, peerId);
+        putVarint(doc, rank);
+        putVarint(doc, tokens.size());
+        putVarint(doc, n);
+        for (int i = 0; i < n; i++) {
+            putVarint(doc, terms[i]);
+            putVarint(doc, counts[i]);
+        }
+        doc.flip();
+        appendRecord(doc);
+
+        addDoc(peerId, rank, tokens.size(), terms, counts, n);
+        return true;
+    }
+
+    private void addDoc(int peerId, int rank, int length, int[] terms, int[] counts, int n) {
+        if (docCount == docPeer.length) {
+            docPeer = Arrays.copyOf(docPeer, docCount * 2);
+            docRank = Arrays.copyOf(docRank, docCount * 2);
+            docLength = Arrays.copyOf(docLength, docCount * 2);
+        }
+        int doc = docCount++;
+        docPeer[doc] = peerId;
+        docRank[doc] = rank;
+        docLength[doc] = length;
+        totalLength += length;
+        for (int i = 0; i < n; i++)
+            postings.get(terms[i]).add(doc, counts[i]);
+        nextRank.set(peerId, rank + 1);
+    }
+
+    private int peerId(String peer, boolean persist) throws IOException {
+        Integer id = peerIds.get(peer);
+        if (id != null)
+            return id;
+        id = peers.size();
+        peers.add(peer);
+        nextRank.add(0);
+        peerIds.put(peer, id);
+        if (persist)
+            appendRecord(named(PEER, peer));
+        return id;
+    }
+
+    private int termId(String term, boolean persist) throws IOException {
+        Integer id = termIds.get(term);
+        if (id != null)
+            return id;
+        id = postings.size();
+        postings.add(new Postings());
+        termIds.put(term, id);
+        if (persist)
+            appendRecord(named(TERM, term));
+        return id;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // RECHERCHE
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Messages contenant tous les termes de la requête, les plus pertinents d'abord.
+     *
+     * @param limit nombre max de résultats
+     */
+    public synchronized List<Hit> search(String query, int limit) {
+        List<String> terms = SearchTokenizer.queryTerms(query);
+        if (terms.isEmpty() || limit <= 0)
+            return List.of();
+        Postings[] lists = new Postings[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            Integer id = termIds.get(terms.get(i));
+            if (id == null)
+                return List.of();
+            lists[i] = postings.get(id);
+        }
+        // Parcours piloté par la liste la plus courte, les autres avancées par saut exponentiel
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        double[] idf = new double[lists.length];
+        for (int i = 0; i < lists.length; i++)
+            idf[i] = Math.log(1 + (docCount - lists[i].size + 0.5) / (lists[i].size + 0.5));
+        double avgLength = docCount == 0 ? 1 : Math.max(1, totalLength / (double) docCount);
+
+        TopHits best = new TopHits(limit);
+        int[] cursors = new int[lists.length];
+        Postings driver = lists[0];
+        candidates:
+        for (int i = 0; i < driver.size; i++) {
+            int doc = driver.docs[i];
+            double score = bm25(driver.freqs[i], idf[0], doc, avgLength);
+            for (int l = 1; l < lists.length; l++) {
+                Postings p = lists[l];
+                int pos = gallop(p, cursors[l], doc);
+                if (pos < 0) {
+                    cursors[l] = -pos - 1;
+                    if (cursors[l] >= p.size)
+                        break candidates; // plus aucun message commun possible
+                    continue candidates;
+                }
+                cursors[l] = pos + 1;
+                score += bm25(p.freqs[pos], idf[l], doc, avgLength);
+            }
+            best.offer(score, doc);
+        }
+
+        List<Hit> hits = new ArrayList<>(best.size);
+        while (best.size > 0) {
+            double score = best.scores[0];
+            int doc = best.poll();
+            hits.add(new Hit(peers.get(docPeer[doc]), docRank[doc], score));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * Tas des {@code limit} meilleurs résultats, en tableaux primitifs (aucune allocation
+     * par candidat) : le moins bon, puis le plus ancien, en tête.
+     */
+    private static final class TopHits {
+        final double[] scores;
+        final int[] docs;
+        int size;
+
+        TopHits(int limit) {
+            scores = new double[limit];
+            docs = new int[limit];
+        }
+
+        void offer(double score, int doc) {
+            if (size < scores.length) {
+                scores[size] = score;
+                docs[size] = doc;
+                up(size++);
+            } else if (less(0, score, doc)) {
+                scores[0] = score;
+                docs[0] = doc;
+                down(0);
+            }
+        }
+
+        /** Retire la tête ; renvoie son numéro de message. */
+        int poll() {
+            int doc = docs[0];
+            size--;
+            scores[0] = scores[size];
+            docs[0] = docs[size];
+            down(0);
+            return doc;
+        }
+
+        /** L'élément i est-il moins bon que (score, doc) ? */
+        private boolean less(int i, double score, int doc) {
+            return scores[i] < score || (scores[i] == score && docs[i] < doc);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(i, scores[parent], docs[parent]))
+                    return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (less(child, scores[smallest], docs[smallest]))
+                        smallest = child;
+                }
+                if (smallest == i)
+                    return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            int d = docs[a];
+            docs[a] = docs[b];
+            docs[b] = d;
+        }
+    }
+
+    /** Position de {@code doc} dans la liste à partir de {@code from} (convention de binarySearch). */
+    private static int gallop(Postings p, int from, int doc) {
+        int step = 1;
+        int lo = from;
+        while (lo + step < p.size && p.docs[lo + step] < doc) {
+            lo += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(p.docs, lo, Math.min(p.size, lo + step + 1), doc);
+    }
+
+    private double bm25(int freq, double idf, int doc, double avgLength) {
+        double norm = K1 * (1 - B + B * docLength[doc] / avgLength);
+        return idf * freq * (K1 + 1) / (freq + norm);
+    }
+
+    /**
+     * Positions [start, end) des mots de {@code text} qui correspondent à un terme de la
+     * requête (accents et pluriels compris), pour le surlignage.
+     */
+    public static List<int[]> highlights(String text, String query) {
+        List<String> terms = SearchTokenizer.queryTerms(query);
+        List<int[]> spans = new ArrayList<>();
+        for (SearchTokenizer.Token t : SearchTokenizer.tokens(text)) {
+            if (terms.contains(t.term()))
+                spans.add(new int[] {t.start(), t.end()});
+        }
+        return spans;
+    }
+
+    /** Nombre de messages indexés. */
+    public synchronized int documentCount() {
+        return docCount;
+    }
+
+    /** Nombre de termes distincts. */
+    public synchronized int termCount() {
+        return postings.size();
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // FICHIER
+    // ═══════════════════════════════════════════════════════
+
+    /** Recharge l'index ; tronque la fin du fichier si le dernier ajout est incomplet. */
+    private void replay() throws IOException {
+        long size = file.size();
+        long position = 0;
+        file.position(0);
+        InputStream raw = new BufferedInputStream(Channels.newInputStream(file), 256 * 1024);
+        DataInputStream in = new DataInputStream(raw);
+        byte[] body = new byte[256];
+        try {
+            while (position + HEADER_BYTES <= size) {
+                int length = in.readInt();
+                int expected = in.readInt();
+                if (length <= 0 || position + HEADER_BYTES + length > size)
+                    break;
+                if (body.length < length)
+                    body = new byte[Math.max(length, body.length * 2)];
+                in.readFully(body, 0, length);
+                if (crc(body, 0, length) != expected)
+                    break;
+                apply(ByteBuffer.wrap(body, 0, length));
+                position += HEADER_BYTES + length;
+            }
+        } catch (EOFException | RuntimeException e) {
+            // enregistrement illisible : traité comme une fin incomplète
+        }
+        if (position < size) {
+            System.err.println("Index de recherche : fin invalide tronquée (" + (size - position) + " octets)");
+            file.truncate(position);
+        }
+        file.position(position);
+    }
+
+    private void apply(ByteBuffer record) throws IOException {
+        byte type = record.get();
+        switch (type) {
+            case PEER -> peerId(utf8(record), false);
+            case TERM -> termId(utf8(record), false);
+            case DOC -> {
+                int peerId = getVarint(record);
+                int rank = getVarint(record);
+                int length = getVarint(record);
+                int n = getVarint(record);
+                int[] terms = new int[n];
+                int[] counts = new int[n];
+                for (int i = 0; i < n; i++) {
+                    terms[i] = getVarint(record);
+                    counts[i] = getVarint(record);
+                }
+                addDoc(peerId, rank, length, terms, counts, n);
+            }
+            default -> throw new IOException("Type d'enregistrement inconnu : " + type);
+        }
+    }
+
+    private static ByteBuffer named(byte type, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + bytes.length);
+        record.put(type).put(bytes).flip();
+        return record;
+    }
+
+    private static String utf8(ByteBuffer record) {
+        return new String(record.array(), record.arrayOffset() + record.position(), record.remaining(),
+                StandardCharsets.UTF_8);
+    }
+
+    /** Ajoute un enregistrement au tampon d'écriture (écrit par {@link #flush}). */
+    private void appendRecord(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (out.remaining() < HEADER_BYTES + length)
+            flush();
+        if (out.remaining() < HEADER_BYTES + length) {
+            // Enregistrement plus grand que le tampon : écrit directement
+            ByteBuffer big = ByteBuffer.allocate(HEADER_BYTES + length);
+            writeRecord(big, payload);
+            big.flip();
+            while (big.hasRemaining())
+                file.write(big);
+            return;
+        }
+        writeRecord(out, payload);
+    }
+
+    private static void writeRecord(ByteBuffer dst, ByteBuffer payload) {
+        int length = payload.remaining();
+        dst.putInt(length);
+        dst.putInt(crc(payload.array(), payload.arrayOffset() + payload.position(), length));
+        dst.put(payload);
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining())
+            file.write(out);
+        out.clear();
+    }
+
+    private static void putVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buf) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalStateException("Varint trop long");
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /** Force les écritures sur disque et ferme le fichier. */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            file.force(false);
+        } finally {
+            file.close();
+        }
+    }
+}
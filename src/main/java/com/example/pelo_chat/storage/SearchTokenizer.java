@@ -0,0 +1,82 @@
+package com.example.pelo_chat.storage;
+
+import com.example.pelo_chat.model.TextFold;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Découpage en termes de recherche d'un texte français.
+ *
+ *  - casse et accents repliés ({@link TextFold}) : "Réunion" → "reunion", "cœur" → "coeur"
+ *  - élisions retirées : "l'équipe" → "equipe", "qu'il" → "il" (mot vide, ignoré)
+ *  - mots vides courants ignorés (le, de, et, que…)
+ *  - pluriel simple retiré : "messages" → "message", "bureaux" → "bureau"
+ *
+ * Le même traitement est appliqué aux messages indexés et aux requêtes ; chaque terme
+ * garde sa position dans le texte d'origine pour surligner les résultats.
+ */
+public final class SearchTokenizer {
+
+    /** Terme et sa position [start, end) dans le texte d'origine. */
+    public record Token(String term, int start, int end) {
+    }
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "au", "aux", "avec", "c", "ce", "ces", "cet", "cette", "d", "dans", "de", "des", "du",
+            "elle", "en", "est", "et", "il", "j", "je", "l", "la", "le", "les", "leur", "lui", "m", "ma",
+            "me", "mes", "mon", "n", "ne", "nous", "on", "ou", "par", "pas", "pour", "qu", "que", "qui",
+            "s", "sa", "se", "ses", "son", "sur", "t", "ta", "te", "tes", "ton", "tu", "un", "une",
+            "vous", "y");
+
+    private SearchTokenizer() {
+    }
+
+    /** Termes du texte, dans l'ordre (mots vides exclus). */
+    public static List<Token> tokens(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        StringBuilder term = new StringBuilder();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0)
+                    start = i;
+                TextFold.append(term, c);
+                continue;
+            }
+            // Apostrophe (droite ou typographique), espace ou ponctuation : fin du mot
+            if (start >= 0) {
+                String t = stem(term.toString());
+                if (!STOP_WORDS.contains(t))
+                    tokens.add(new Token(t, start, i));
+                term.setLength(0);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /** Termes distincts d'une requête, dans l'ordre de saisie. */
+    public static List<String> queryTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (Token t : tokens(query)) {
+            if (!terms.contains(t.term()))
+                terms.add(t.term());
+        }
+        return terms;
+    }
+
+    /** Pluriel régulier : -s retiré (sauf -ss), -eaux / -eux ramenés à -eau / -eu. */
+    private static String stem(String term) {
+        int n = term.length();
+        if (n > 3 && term.endsWith("s") && !term.endsWith("ss"))
+            return term.substring(0, n - 1);
+        if (n > 4 && (term.endsWith("eaux") || term.endsWith("eux")))
+            return term.substring(0, n - 1);
+        return term;
+    }
+}
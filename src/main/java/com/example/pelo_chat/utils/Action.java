@@ -0,0 +1,72 @@
+package com.example.pelo_chat.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Actions connues du protocole (champ {@code Packet.action}, voir {@link Packet}).
+ *
+ * Le paquet garde l'action sous forme de texte (format du fil inchangé) ;
+ * {@link #of(String)} la convertit en une recherche dans une table, et toute action
+ * inconnue du client devient {@link #UNKNOWN} au lieu d'être ignorée en silence.
+ *
+ * Chaque action transmise porte son code sur un octet pour {@link BinaryPacketCodec}
+ * ({@link #code()}) : ces codes font partie du format du fil et ne doivent jamais
+ * changer. Une action de code 0 est transmise en clair.
+ */
+public enum Action {
+    LOGIN(1),
+    REGISTER(2),
+    ACK(3),
+    REGISTER_OK(4),
+    GET_USERS(5),
+    USERS_LIST(6),
+    SEND_MESSAGE(7),
+    MESSAGE_RECEIVED(8),
+    STATUS_UPDATE(9),
+    LOGOUT(10),
+    ERROR(11),
+    HELLO(12),
+    // Paquets locaux, générés par SocketService
+    RECONNECTING(0),
+    RECONNECTED(0),
+    /** Action absente ou inconnue du client. */
+    UNKNOWN(0);
+
+    private static final Map<String, Action> BY_NAME = new HashMap<>();
+    private static final Action[] BY_CODE = new Action[256];
+
+    static {
+        for (Action a : values()) {
+            if (a != UNKNOWN)
+                BY_NAME.put(a.name(), a);
+            if (a.code != 0) {
+                if (BY_CODE[a.code] != null)
+                    throw new ExceptionInInitializerError("Code d'action en double : " + a.code);
+                BY_CODE[a.code] = a;
+            }
+        }
+    }
+
+    private final int code;
+
+    Action(int code) {
+        this.code = code;
+    }
+
+    /** Code sur un octet du codec binaire, 0 si l'action est transmise en clair. */
+    public int code() {
+        return code;
+    }
+
+    /** Action correspondant au texte reçu, UNKNOWN si null ou inconnue. */
+    public static Action of(String name) {
+        Action a = name != null ? BY_NAME.get(name) : null;
+        return a != null ? a : UNKNOWN;
+    }
+
+    /** Action de code {@code code} (1 à 255), null si aucune. */
+    public static Action ofCode(int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.pelo_chat.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodage binaire compact d'un paquet, sans échappement ni réflexion :
+ *
+ *   trame   = varint(longueur du corps) corps
+ *   corps   = code action (1 octet) [action si code = 0] from to content
+ *   chaîne  = varint(nombre d'octets UTF-8 + 1) octets, 0 pour null
+ *
+ * Les actions connues tiennent sur un octet ({@link Action#code()}) ; une action
+ * inconnue, ou sans code, est transmise en clair après le code 0. Un retour à la
+ * ligne dans le contenu n'a rien de particulier : seule la longueur délimite la trame.
+ *
+ * Le serveur est prévenu à l'ouverture par une ligne JSON HELLO (content="binary") :
+ * tout ce qui suit, dans les deux sens, utilise ce format.
+ */
+public class BinaryPacketCodec implements PacketCodec {
+
+    public static final String NAME = "binary";
+
+    private final int maxFrameBytes;
+
+    public BinaryPacketCodec() {
+        this(MAX_FRAME_BYTES);
+    }
+
+    public BinaryPacketCodec(int maxFrameBytes) {
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    @Override
+    public int maxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // ENCODAGE
+    // ═══════════════════════════════════════════════════════
+
+    @Override
+    public byte[] encode(Packet packet) {
+        int code = packet.actionType().code();
+        byte[] action = code == 0 ? utf8(packet.getAction()) : null;
+        byte[] from = utf8(packet.getFrom());
+        byte[] to = utf8(packet.getTo());
+        byte[] content = utf8(packet.getContent());
+
+        int body = 1 + (code == 0 ? stringSize(action) : 0)
+                + stringSize(from) + stringSize(to) + stringSize(content);
+        ByteBuffer out = ByteBuffer.allocate(varintSize(body) + body);
+        putVarint(out, body);
+        out.put((byte) code);
+        if (code == 0)
+            putString(out, action);
+        putString(out, from);
+        putString(out, to);
+        putString(out, content);
+        return out.array();
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return bytes == null ? 1 : varintSize(bytes.length + 1) + bytes.length;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.put((byte) 0);
+            return;
+        }
+        putVarint(out, bytes.length + 1);
+        out.put(bytes);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // DÉCODAGE
+    // ═══════════════════════════════════════════════════════
+
+    @Override
+    public Packet read(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0)
+                    return null; // fin de flux entre deux trames
+                throw new EOFException("Trame tronquée");
+            }
+            if (shift > 28)
+                throw new IOException("Longueur de trame invalide");
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                break;
+        }
+        checkLength(length);
+        byte[] body = in.readNBytes(length);
+        if (body.length < length)
+            throw new EOFException("Trame tronquée");
+        return decodeBody(ByteBuffer.wrap(body));
+    }
+
+    @Override
+    public int frameEnd(ByteBuffer buf, int start, int resumeAt, int limit) throws IOException {
+        int length = 0;
+        int i = start;
+        for (int shift = 0; ; shift += 7) {
+            if (i >= limit)
+                return -1; // préfixe de longueur incomplet
+            if (shift > 28)
+                throw new IOException("Longueur de trame invalide");
+            int b = buf.get(i++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                break;
+        }
+        checkLength(length);
+        return limit - i >= length ? i + length : -1;
+    }
+
+    @Override
+    public Packet decode(ByteBuffer frame) throws IOException {
+        // Saute le préfixe de longueur (déjà validé par frameEnd)
+        while ((frame.get() & 0x80) != 0) {
+        }
+        return decodeBody(frame);
+    }
+
+    private static Packet decodeBody(ByteBuffer body) throws IOException {
+        try {
+            int code = body.get() & 0xFF;
+            String action;
+            if (code == 0) {
+                action = getString(body);
+            } else {
+                Action known = Action.ofCode(code);
+                if (known == null)
+                    throw new IOException("Code d'action inconnu : " + code);
+                action = known.name();
+            }
+            String from = getString(body);
+            String to = getString(body);
+            String content = getString(body);
+            return new Packet(action, from, to, content);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, longueur incohérente…
+            throw new IOException("Trame binaire invalide", e);
+        }
+    }
+
+    private static String getString(ByteBuffer in) throws IOException {
+        int n = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28)
+                throw new IOException("Longueur de chaîne invalide");
+            int b = in.get();
+            n |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                break;
+        }
+        if (n == 0)
+            return null;
+        int length = n - 1;
+        if (length > in.remaining())
+            throw new IOException("Chaîne plus longue que la trame");
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(in.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private void checkLength(int length) throws IOException {
+        if (length < 0 || length > maxFrameBytes)
+            throw new IOException("Trame supérieure à " + maxFrameBytes + " octets");
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.pelo_chat.utils;
+
+import com.example.pelo_chat.model.ChatMessage;
+import com.example.pelo_chat.model.StatusEvent;
+import com.example.pelo_chat.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Instance Gson unique de l'application et adaptateurs écrits à la main pour tous les
+ * types échangés ou stockés : {@link Packet}, {@link User}, {@link ChatMessage} et
+ * {@link StatusEvent} (contenu des STATUS_UPDATE).
+ *
+ * Les champs sont lus et écrits un à un sur le flux JSON, sans réflexion : rien à
+ * ouvrir à Gson dans module-info, et aucun cache d'adaptateurs reconstruit par un
+ * {@code new Gson()} local. Le JSON produit est celui de la sérialisation par défaut
+ * (mêmes noms, même ordre, champs null omis) ; en lecture, les champs inconnus sont
+ * ignorés et un nombre ou un booléen est accepté à la place d'un texte.
+ */
+public final class JsonAdapters {
+
+    public static final TypeAdapter<Packet> PACKET = new PacketAdapter().nullSafe();
+    public static final TypeAdapter<User> USER = new UserAdapter().nullSafe();
+    public static final TypeAdapter<ChatMessage> CHAT_MESSAGE = new ChatMessageAdapter().nullSafe();
+    public static final TypeAdapter<StatusEvent> STATUS_EVENT = new StatusEventAdapter().nullSafe();
+
+    /** Gson partagé (thread-safe), adaptateurs ci-dessus enregistrés. */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Packet.class, PACKET)
+            .registerTypeAdapter(User.class, USER)
+            .registerTypeAdapter(ChatMessage.class, CHAT_MESSAGE)
+            .registerTypeAdapter(StatusEvent.class, STATUS_EVENT)
+            .create();
+
+    private JsonAdapters() {
+    }
+
+    // ── Packet ───────────────────────────────────────────
+
+    private static final class PacketAdapter extends TypeAdapter<Packet> {
+        @Override
+        public void write(JsonWriter out, Packet p) throws IOException {
+            out.beginObject();
+            writeField(out, "action", p.getAction());
+            writeField(out, "from", p.getFrom());
+            writeField(out, "to", p.getTo());
+            writeField(out, "content", p.getContent());
+            out.endObject();
+        }
+
+        @Override
+        public Packet read(JsonReader in) throws IOException {
+            Packet p = new Packet();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "action" -> p.setAction(nextStringOrNull(in));
+                    case "from" -> p.setFrom(nextStringOrNull(in));
+                    case "to" -> p.setTo(nextStringOrNull(in));
+                    case "content" -> p.setContent(nextStringOrNull(in));
+                    default -> in.skipValue(); // champ inconnu (serveur plus récent)
+                }
+            }
+            in.endObject();
+            return p;
+        }
+    }
+
+    // ── User ─────────────────────────────────────────────
+
+    private static final class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User u) throws IOException {
+            out.beginObject();
+            writeField(out, "username", u.getUsername());
+            writeField(out, "fullName", u.getFullName());
+            writeField(out, "status", u.getStatus());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User u = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> u.setUsername(nextStringOrNull(in));
+                    case "fullName" -> u.setFullName(nextStringOrNull(in));
+                    case "status" -> u.setStatus(nextStringOrNull(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return u;
+        }
+    }
+
+    // ── ChatMessage ──────────────────────────────────────
+
+    private static final class ChatMessageAdapter extends TypeAdapter<ChatMessage> {
+        @Override
+        public void write(JsonWriter out, ChatMessage m) throws IOException {
+            out.beginObject();
+            writeField(out, "from", m.from());
+            writeField(out, "content", m.content());
+            out.name("mine").value(m.mine());
+            writeField(out, "time", m.time());
+            out.endObject();
+        }
+
+        @Override
+        public ChatMessage read(JsonReader in) throws IOException {
+            String from = null;
+            String content = null;
+            boolean mine = false;
+            String time = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "from" -> from = nextStringOrNull(in);
+                    case "content" -> content = nextStringOrNull(in);
+                    case "mine" -> mine = "true".equals(nextStringOrNull(in));
+                    case "time" -> time = nextStringOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChatMessage(from, content, mine, time);
+        }
+    }
+
+    // ── StatusEvent ──────────────────────────────────────
+
+    /** {"username":"x","status":"ONLINE"} ; null si l'un des deux champs manque. */
+    private static final class StatusEventAdapter extends TypeAdapter<StatusEvent> {
+        @Override
+        public void write(JsonWriter out, StatusEvent e) throws IOException {
+            out.beginObject();
+            writeField(out, "username", e.username());
+            writeField(out, "status", e.status());
+            out.endObject();
+        }
+
+        @Override
+        public StatusEvent read(JsonReader in) throws IOException {
+            String username = null;
+            String status = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = nextStringOrNull(in);
+                    case "status" -> status = nextStringOrNull(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return username != null && status != null ? new StatusEvent(username, status) : null;
+        }
+    }
+
+    // ── Utilitaires ──────────────────────────────────────
+
+    private static void writeField(JsonWriter out, String name, String value) throws IOException {
+        if (value != null)
+            out.name(name).value(value);
+    }
+
+    /** Valeur texte du champ courant ; null pour null ou pour un type inattendu (ignoré). */
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING, NUMBER -> {
+                return in.nextString();
+            }
+            case BOOLEAN -> {
+                return String.valueOf(in.nextBoolean());
+            }
+            case NULL -> in.nextNull();
+            default -> in.skipValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.pelo_chat.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.CharArrayReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocole historique : chaque paquet est un objet JSON sur une ligne terminée par \n
+ * (\r\n accepté en lecture). Les sauts de ligne du contenu sont échappés par Gson.
+ *
+ * Deux chemins de décodage, sans String intermédiaire pour la ligne :
+ *  - flux bloquant ({@link #read(InputStream)}) : un JsonReader Gson en mode lenient
+ *    lit les objets les uns après les autres directement sur le flux du socket (les
+ *    fins de ligne ne sont que des blancs entre deux valeurs). Les champs du paquet
+ *    sont lus un à un, sans réflexion ({@link JsonAdapters}), et le buffer de
+ *    caractères du lecteur sert à toute la connexion.
+ *  - trame isolée ({@link #decode(ByteBuffer)}, transport NIO) : décodage UTF-8 dans
+ *    un CharBuffer réutilisé, lu par Gson.
+ */
+public class JsonLineCodec implements PacketCodec {
+
+    public static final String NAME = "json";
+
+    private final Gson gson;
+    private final int maxFrameBytes;
+
+    // ── État de lecture (thread réseau uniquement) ───────────
+    private CharBuffer chars = CharBuffer.allocate(4096);
+    private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // ── Lecture en flux (une par connexion) ──────────────────
+    private InputStream source;
+    private FrameLimitInputStream limited;
+    private JsonReader stream;
+
+    public JsonLineCodec(Gson gson) {
+        this(gson, MAX_FRAME_BYTES);
+    }
+
+    /**
+     * @param maxFrameBytes taille max d'un paquet ; au-delà, la lecture échoue dès que
+     *                      la limite est franchie, sans attendre la fin de la trame
+     */
+    public JsonLineCodec(Gson gson, int maxFrameBytes) {
+        this.gson = gson;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    @Override
+    public int maxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(Packet packet) {
+        return (gson.toJson(packet) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // LECTURE EN FLUX
+    // ═══════════════════════════════════════════════════════
+
+    /**
+     * Lit le prochain objet JSON du flux. Le lecteur lit par avance : tous les appels
+     * d'une connexion doivent porter sur le même flux, qui ne doit pas être lu ailleurs.
+     * Un JSON invalide fait perdre la synchronisation : l'erreur (IOException) termine
+     * alors la connexion au lieu d'ignorer la ligne.
+     */
+    @Override
+    public Packet read(InputStream in) throws IOException {
+        if (in != source) {
+            source = in;
+            limited = new FrameLimitInputStream(in, maxFrameBytes);
+            stream = new JsonReader(new InputStreamReader(limited, StandardCharsets.UTF_8));
+            // Plusieurs valeurs de premier niveau à la suite : une par paquet
+            stream.setStrictness(Strictness.LENIENT);
+        }
+        limited.startFrame();
+        JsonToken next;
+        while ((next = stream.peek()) != JsonToken.BEGIN_OBJECT) {
+            if (next == JsonToken.END_DOCUMENT)
+                return null;
+            stream.skipValue(); // valeur de premier niveau qui n'est pas un paquet
+        }
+
+        return JsonAdapters.PACKET.read(stream);
+    }
+
+    @Override
+    public int frameEnd(ByteBuffer buf, int start, int resumeAt, int limit) throws IOException {
+        for (int i = Math.max(start, resumeAt); i < limit; i++) {
+            if (buf.get(i) == '\n')
+                return i + 1;
+        }
+        if (limit - start >= maxFrameBytes)
+            throw new IOException("Trame supérieure à " + maxFrameBytes + " octets");
+        return -1;
+    }
+
+    @Override
+    public Packet decode(ByteBuffer frame) {
+        int end = frame.limit();
+        if (end > frame.position() && frame.get(end - 1) == '\n')
+            end--;
+        if (end > frame.position() && frame.get(end - 1) == '\r')
+            end--;
+        int length = end - frame.position();
+        if (length <= 0)
+            return null;
+        frame.limit(end);
+
+        if (chars.capacity() < length)
+            chars = CharBuffer.allocate(Integer.highestOneBit(length) << 1);
+        chars.clear();
+        utf8.reset();
+        // UTF-8 → UTF-16 : au plus un char par octet, le CharBuffer suffit toujours
+        utf8.decode(frame, chars, true);
+        utf8.flush(chars);
+        return gson.fromJson(new CharArrayReader(chars.array(), 0, chars.position()), Packet.class);
+    }
+
+    /**
+     * Compte les octets lus depuis le début du paquet courant et coupe la lecture dès
+     * que la limite est dépassée : une trame géante n'est jamais lue en entier.
+     * Le comptage inclut la lecture anticipée des buffers (quelques Ko), négligeable
+     * devant la limite.
+     */
+    private static final class FrameLimitInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+        private long frameStart;
+
+        FrameLimitInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        void startFrame() {
+            frameStart = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                advance(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                advance(n);
+            return n;
+        }
+
+        private void advance(int n) throws IOException {
+            count += n;
+            if (count - frameStart > limit)
+                throw new IOException("Trame supérieure à " + limit + " octets");
+        }
+    }
+}
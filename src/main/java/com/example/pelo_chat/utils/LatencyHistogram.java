@@ -0,0 +1,96 @@
+package com.example.pelo_chat.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogramme de latences à précision relative constante : chaque puissance de 2 (en
+ * nanosecondes) est découpée en {@value #SUB_BUCKETS} cases égales, soit une erreur
+ * d'au plus 1/{@value #SUB_BUCKETS} sur les percentiles (à 1 µs près sous 8 µs).
+ *
+ * Taille fixe quel que soit le nombre de mesures : adapté à un enregistrement continu
+ * sous charge, contrairement à un anneau des N dernières valeurs.
+ *
+ * Thread-safe et sans verrou : plusieurs threads peuvent enregistrer en même temps
+ * (réseau, JavaFX, historique). Les lectures sont approximatives pendant les écritures.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MIN_SHIFT = 10; // cases de ~1 µs jusqu'à 8 µs
+    private static final int RANGES = 63 - MIN_SHIFT - SUB_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(RANGES * SUB_BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Enregistre une durée en nanosecondes (les valeurs négatives comptent pour 0). */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(v));
+        max.accumulate(v);
+    }
+
+    private static int index(long v) {
+        if (v < 1L << (MIN_SHIFT + SUB_BITS))
+            return (int) (v >>> MIN_SHIFT);
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int range = msb - MIN_SHIFT - SUB_BITS + 1;
+        return range * SUB_BUCKETS + (int) (v >>> (msb - SUB_BITS)) - SUB_BUCKETS;
+    }
+
+    /** Borne haute (ns) des valeurs rangées dans la case {@code i}. */
+    private static long upperBound(int i) {
+        int range = i / SUB_BUCKETS;
+        int sub = i % SUB_BUCKETS;
+        if (range == 0)
+            return (long) (sub + 1) << MIN_SHIFT;
+        long bound = (long) (SUB_BUCKETS + sub + 1) << (range + MIN_SHIFT - 1);
+        return bound > 0 ? bound : Long.MAX_VALUE;
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Valeur (ns) sous laquelle se trouvent {@code percentile} % des mesures, arrondie à
+     * la borne haute de sa case (sans dépasser le maximum observé) ; 0 sans mesure.
+     */
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0)
+            return 0;
+        long max = max();
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+        max.reset();
+    }
+
+    /** Résumé lisible : p50 / p95 / p99 / max en ms et nombre de mesures. */
+    public String summary() {
+        long count = count();
+        if (count == 0)
+            return "-";
+        return String.format("p50 %.2f ms / p95 %.2f ms / p99 %.2f ms / max %.2f ms (%d)",
+                percentile(50) / 1e6, percentile(95) / 1e6, percentile(99) / 1e6, max() / 1e6, count);
+    }
+}
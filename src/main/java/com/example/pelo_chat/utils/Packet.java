@@ -1,12 +1,13 @@
 package com.example.pelo_chat.utils;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * Unité d'échange entre le client et le serveur via TCP.
- * Sérialisée en JSON (GSON) sur une ligne, une ligne = un paquet.
+ * Sérialisée en JSON ({@link JsonAdapters}) sur une ligne, une ligne = un paquet, ou en trame binaire
+ * préfixée par sa longueur (voir {@link PacketCodec}).
  *
  * Actions principales :
  *   LOGIN          → from=username, content=password
@@ -14,14 +15,25 @@ import lombok.NoArgsConstructor;
  *   ACK            → réponse succès du serveur (LOGIN ou autre)
  *   REGISTER_OK    → inscription acceptée
  *   GET_USERS      → from=username (demande la liste des autres users)
+ *                    content="since=<epoch ms>" après une reconnexion : seuls les
+ *                    changements depuis la coupure sont nécessaires (un serveur qui
+ *                    ignore ce champ renvoie la liste complète)
  *   USERS_LIST     → content=JSON tableau User[]
  *   SEND_MESSAGE   → from=moi, to=destinataire, content=texte
  *   MESSAGE_RECEIVED → from=expéditeur, content=texte
  *   STATUS_UPDATE  → content={"username":"x","status":"ONLINE|OFFLINE"}
  *   LOGOUT         → déconnexion propre
  *   ERROR          → content=message d'erreur lisible
+ *   HELLO          → content=nom du codec ("binary"), suivi de "+deflate" si la
+ *                    connexion est compressée ; toujours en JSON, non compressé et en
+ *                    tête de connexion, la suite utilise ce mode dans les deux sens
+ *
+ * Paquets locaux, générés par SocketService (jamais envoyés sur le réseau) :
+ *   RECONNECTING   → connexion perdue, nouvelle tentative dans content=délai (ms)
+ *   RECONNECTED    → session rétablie et ré-authentifiée
+ *
+ * Côté client, l'action est lue sous forme typée ({@link #actionType()}, voir {@link Action}).
  */
-@AllArgsConstructor
 @NoArgsConstructor
 @Data
 public class Packet {
@@ -38,5 +50,34 @@ public class Packet {
     /** Charge utile : mot de passe, texte du message, JSON, ou message d'erreur. */
     private String content;
 
+    /**
+     * Contenu décodé côté client (User[], StatusEvent, ChatMessage…), renseigné par
+     * PacketDecoder sur le thread réseau. Jamais sérialisé (transient).
+     */
+    @ToString.Exclude
+    private transient Object payload;
+
+    /**
+     * Instant de réception (System.nanoTime), renseigné par PacketDecoder sur le thread
+     * réseau ; 0 pour les paquets locaux. Sert à mesurer le délai jusqu'à l'affichage.
+     */
+    @ToString.Exclude
+    private transient long receivedNanos;
+
+    public Packet(String action, String from, String to, String content) {
+        this.action = action;
+        this.from = from;
+        this.to = to;
+        this.content = content;
+    }
+
+    /** Action typée (UNKNOWN si absente ou inconnue du client). */
+    public Action actionType() {
+        return Action.of(action);
+    }
 
+    /** Retourne le contenu décodé s'il est du type attendu, sinon null. */
+    public <T> T payloadAs(Class<T> type) {
+        return type.isInstance(payload) ? type.cast(payload) : null;
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.pelo_chat.utils;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodage d'un {@link Packet} sur le fil : découpage en trames et (dé)sérialisation.
+ *
+ * Implémentations :
+ *  - {@link JsonLineCodec}     : une ligne JSON par paquet (protocole historique, par défaut)
+ *  - {@link BinaryPacketCodec} : trame préfixée par sa longueur, action sur un octet
+ *
+ * Une instance par connexion : la lecture (thread réseau) peut réutiliser des buffers
+ * internes. L'encodage, lui, peut être appelé depuis un autre thread (écriture).
+ */
+public interface PacketCodec {
+
+    /** Taille max d'une trame par défaut (USERS_LIST d'un gros annuaire compris). */
+    int MAX_FRAME_BYTES = 32 * 1024 * 1024;
+
+    /** Nom annoncé au serveur dans le paquet HELLO ("json", "binary"). */
+    String name();
+
+    /** Taille max acceptée pour une trame reçue ; au-delà, la connexion est fermée. */
+    int maxFrameBytes();
+
+    /** Suffixe du paquet HELLO quand la connexion est compressée (ex. "json+deflate"). */
+    String DEFLATE_SUFFIX = "+deflate";
+
+    /**
+     * Ligne HELLO à envoyer juste après l'ouverture de la connexion, avant tout paquet,
+     * toujours en JSON et jamais compressée : content="{codec}[+deflate]". Null pour le
+     * protocole historique (JSON sans compression), que le serveur n'a pas à négocier.
+     */
+    static byte[] handshake(PacketCodec codec, boolean deflate) {
+        if (JsonLineCodec.NAME.equals(codec.name()) && !deflate)
+            return null;
+        String mode = codec.name() + (deflate ? DEFLATE_SUFFIX : "");
+        return ("{\"action\":\"HELLO\",\"content\":\"" + mode + "\"}\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Encode un paquet en une trame complète (délimiteur ou préfixe de longueur compris). */
+    byte[] encode(Packet packet);
+
+    /** Écrit la trame d'un paquet sur un flux (bufferisé : le flush reste à l'appelant). */
+    default void write(Packet packet, OutputStream out) throws IOException {
+        out.write(encode(packet));
+    }
+
+    /**
+     * Lit le prochain paquet d'un flux bloquant.
+     *
+     * @return le paquet, ou null en fin de flux
+     */
+    Packet read(InputStream in) throws IOException;
+
+    /**
+     * Cherche la fin de la trame qui commence en {@code start} dans les octets
+     * [start, limit) du buffer (lecture non bloquante).
+     *
+     * @param resumeAt position jusqu'à laquelle les octets ont déjà été examinés sans
+     *                 trouver de fin de trame (évite de les reparcourir)
+     * @return position qui suit la trame, ou -1 si elle n'est pas encore complète
+     * @throws IOException si la trame annoncée dépasse {@link #maxFrameBytes()}
+     */
+    int frameEnd(ByteBuffer buf, int start, int resumeAt, int limit) throws IOException;
+
+    /**
+     * Décode une trame complète (bornée par position/limit du buffer).
+     *
+     * @return le paquet, ou null pour une trame vide
+     */
+    Packet decode(ByteBuffer frame) throws IOException;
+
+    /** Codec correspondant à un nom ("json" si le nom est inconnu, suffixe +deflate ignoré). */
+    static PacketCodec forName(String name, Gson gson) {
+        return forName(name, gson, MAX_FRAME_BYTES);
+    }
+
+    static PacketCodec forName(String name, Gson gson, int maxFrameBytes) {
+        if (name != null && name.endsWith(DEFLATE_SUFFIX))
+            name = name.substring(0, name.length() - DEFLATE_SUFFIX.length());
+        return BinaryPacketCodec.NAME.equalsIgnoreCase(name)
+                ? new BinaryPacketCodec(maxFrameBytes)
+                : new JsonLineCodec(gson, maxFrameBytes);
+    }
+}
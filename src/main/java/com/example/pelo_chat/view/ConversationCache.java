@@ -0,0 +1,129 @@
+package com.example.pelo_chat.view;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.utils.LatencyHistogram;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conversations récemment affichées (fenêtre de pages et position de défilement),
+ * pour revenir sur l'une d'elles sans relire le disque ni perdre sa place.
+ *
+ * LRU borné à {@code capacity} conversations ; chaque entrée est en plus tenue par une
+ * {@link SoftReference}, que le GC libère en cas de manque de mémoire. Une conversation
+ * évincée sera simplement rouverte depuis le disque. La conversation affichée reste
+ * tenue par le contrôleur et n'est donc jamais libérée.
+ *
+ * Mesures (voir Metrics) : conversations.cache.hit / miss / evicted (taille max) /
+ * reclaimed (GC), et la latence des changements de conversation (clic → première image
+ * avec les messages) dans conversation.switch.cached et conversation.switch.uncached.
+ *
+ * Thread JavaFX uniquement.
+ */
+public final class ConversationCache {
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    /** Position de défilement : ligne en haut de la liste et son décalage en pixels. */
+    public record Scroll(int index, double offset, boolean atEnd) {
+    }
+
+    private static final class Entry extends SoftReference<PagedConversation> {
+        final String peer;
+        Scroll scroll;
+
+        Entry(String peer, PagedConversation conversation, ReferenceQueue<PagedConversation> queue) {
+            super(conversation, queue);
+            this.peer = peer;
+        }
+    }
+
+    private static final LongAdder HITS = Metrics.CLIENT.counter("conversations.cache.hit");
+    private static final LongAdder MISSES = Metrics.CLIENT.counter("conversations.cache.miss");
+    private static final LongAdder EVICTED = Metrics.CLIENT.counter("conversations.cache.evicted");
+    private static final LongAdder RECLAIMED = Metrics.CLIENT.counter("conversations.cache.reclaimed");
+    private static final LatencyHistogram SWITCH_CACHED = Metrics.CLIENT.histogram("conversation.switch.cached");
+    private static final LatencyHistogram SWITCH_UNCACHED = Metrics.CLIENT.histogram("conversation.switch.uncached");
+
+    private final int capacity;
+    private final ReferenceQueue<PagedConversation> collected = new ReferenceQueue<>();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ConversationCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= ConversationCache.this.capacity)
+                    return false;
+                EVICTED.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Conversation avec {@code peer} si elle est encore en cache (devient la plus récente). */
+    public PagedConversation get(String peer) {
+        purge();
+        Entry e = entries.get(peer);
+        PagedConversation conv = e != null ? e.get() : null;
+        if (conv == null) {
+            MISSES.increment();
+            return null;
+        }
+        HITS.increment();
+        return conv;
+    }
+
+    /**
+     * Conversation avec {@code peer} si elle est en cache, sans compter de succès ni
+     * d'échec (un message reçu la rend tout de même plus récente dans le LRU).
+     */
+    public PagedConversation peek(String peer) {
+        Entry e = entries.get(peer);
+        return e != null ? e.get() : null;
+    }
+
+    public void put(PagedConversation conversation) {
+        purge();
+        entries.put(conversation.peer(), new Entry(conversation.peer(), conversation, collected));
+    }
+
+    /** Retient la position de défilement de {@code peer} (au moment de le quitter). */
+    public void saveScroll(String peer, Scroll scroll) {
+        Entry e = entries.get(peer);
+        if (e != null)
+            e.scroll = scroll;
+    }
+
+    /** Position de défilement retenue pour {@code peer}, null si aucune. */
+    public Scroll scroll(String peer) {
+        Entry e = entries.get(peer);
+        return e != null && e.get() != null ? e.scroll : null;
+    }
+
+    /** Retire les entrées dont la conversation a été libérée par le GC. */
+    private void purge() {
+        Reference<? extends PagedConversation> ref;
+        while ((ref = collected.poll()) != null) {
+            Entry e = (Entry) ref;
+            // L'entrée a pu être remplacée depuis par une conversation rouverte
+            if (entries.get(e.peer) == e) {
+                entries.remove(e.peer);
+                RECLAIMED.increment();
+            }
+        }
+    }
+
+    // ── Latence des changements de conversation ──────────
+
+    /** Enregistre la durée d'un changement de conversation. */
+    public void recordSwitch(long nanos, boolean cached) {
+        (cached ? SWITCH_CACHED : SWITCH_UNCACHED).record(nanos);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.pelo_chat.view;
+
+import com.example.pelo_chat.model.ChatMessage;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+
+import java.util.function.Supplier;
+
+/**
+ * Cellule recyclable de la liste des messages (ListView virtualisée).
+ *
+ * La ListView ne crée qu'autant de cellules que de lignes visibles et les réutilise
+ * pendant le défilement : chaque cellule construit une seule fois ses deux gabarits
+ * (bulle envoyée / bulle reçue) puis se contente de mettre à jour les textes dans
+ * updateItem(). Ouvrir une conversation de 100 000 messages ne coûte donc que
+ * quelques dizaines de nœuds, quelle que soit la longueur de l'historique.
+ */
+public final class MessageCell extends ListCell<ChatMessage> {
+
+    /** Largeur max d'une bulle, en proportion de la largeur de la liste. */
+    private static final double BUBBLE_WIDTH_RATIO = 0.6;
+
+    // Initiales + classe CSS de l'avatar du contact affiché (lues à chaque updateItem)
+    private final Supplier<String> avatarInitials;
+    private final Supplier<String> avatarStyle;
+
+    // ── Gabarit "envoyé" (construit à la demande) ──────────
+    private HBox sentNode;
+    private Label sentText;
+    private Label sentTime;
+
+    // ── Gabarit "reçu" (construit à la demande) ────────────
+    private HBox receivedNode;
+    private StackPane receivedAvatar;
+    private Text receivedInitials;
+    private String receivedAvatarStyle;
+    private Label receivedSender;
+    private Label receivedText;
+    private Label receivedTime;
+
+    public MessageCell(Supplier<String> avatarInitials, Supplier<String> avatarStyle) {
+        this.avatarInitials = avatarInitials;
+        this.avatarStyle = avatarStyle;
+        // Empêche la cellule d'imposer sa largeur préférée (pas de scroll horizontal)
+        setPrefWidth(0);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage msg, boolean empty) {
+        super.updateItem(msg, empty);
+        setText(null);
+        if (empty || msg == null) {
+            setGraphic(null);
+            return;
+        }
+        setGraphic(msg.mine() ? bindSent(msg) : bindReceived(msg));
+    }
+
+    private HBox bindSent(ChatMessage msg) {
+        if (sentNode == null)
+            buildSent();
+        sentText.setText(msg.content());
+        sentTime.setText(msg.time());
+        return sentNode;
+    }
+
+    private HBox bindReceived(ChatMessage msg) {
+        if (receivedNode == null)
+            buildReceived();
+        receivedInitials.setText(avatarInitials.get());
+        String style = avatarStyle.get();
+        if (!style.equals(receivedAvatarStyle)) {
+            if (receivedAvatarStyle != null)
+                receivedAvatar.getStyleClass().remove(receivedAvatarStyle);
+            receivedAvatar.getStyleClass().add(style);
+            receivedAvatarStyle = style;
+        }
+        receivedSender.setText(msg.from());
+        receivedText.setText(msg.content());
+        receivedTime.setText(msg.time());
+        return receivedNode;
+    }
+
+    private void buildSent() {
+        sentText = new Label();
+        sentText.setWrapText(true);
+        sentText.setStyle("-fx-text-fill: white;");
+        sentText.getStyleClass().add("pelo-body");
+        bindBubbleWidth(sentText);
+
+        VBox bubble = new VBox(sentText);
+        bubble.getStyleClass().addAll("pelo-bubble", "pelo-bubble-sent");
+
+        sentTime = new Label();
+        sentTime.getStyleClass().add("pelo-meta");
+
+        Text checks = new Text("✓✓");
+        checks.setFill(Color.web("#2ecc71"));
+
+        HBox timeRow = new HBox(5, sentTime, checks);
+        timeRow.setAlignment(Pos.CENTER_RIGHT);
+
+        VBox content = new VBox(5, bubble, timeRow);
+        content.setAlignment(Pos.TOP_RIGHT);
+
+        sentNode = new HBox(content);
+        sentNode.setAlignment(Pos.TOP_RIGHT);
+    }
+
+    private void buildReceived() {
+        receivedInitials = new Text();
+        receivedInitials.setFill(Color.WHITE);
+        receivedAvatar = new StackPane(receivedInitials);
+        receivedAvatar.getStyleClass().addAll("pelo-avatar", "pelo-avatar-sm");
+
+        receivedSender = new Label();
+        receivedSender.getStyleClass().add("pelo-meta");
+
+        receivedText = new Label();
+        receivedText.setWrapText(true);
+        receivedText.getStyleClass().add("pelo-body-navy");
+        bindBubbleWidth(receivedText);
+
+        VBox bubble = new VBox(receivedText);
+        bubble.getStyleClass().addAll("pelo-bubble", "pelo-bubble-received");
+
+        receivedTime = new Label();
+        receivedTime.getStyleClass().add("pelo-meta");
+
+        VBox content = new VBox(5, receivedSender, bubble, receivedTime);
+
+        receivedNode = new HBox(12, receivedAvatar, content);
+        StackPane.setAlignment(receivedAvatar, Pos.TOP_CENTER);
+    }
+
+    /** Limite la largeur du texte pour que le retour à la ligne se fasse dans la bulle. */
+    private void bindBubbleWidth(Label text) {
+        ListView<ChatMessage> list = getListView();
+        if (list != null) {
+            text.maxWidthProperty().bind(list.widthProperty().multiply(BUBBLE_WIDTH_RATIO));
+        }
+    }
+}
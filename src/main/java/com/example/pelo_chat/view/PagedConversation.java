@@ -0,0 +1,270 @@
+package com.example.pelo_chat.view;
+
+import com.example.pelo_chat.model.ChatMessage;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Fenêtre glissante sur l'historique d'une conversation, affichée par la ListView.
+ *
+ * La conversation s'ouvre sur ses {@code pageSize} derniers messages ; les pages plus
+ * anciennes (ou plus récentes, après être remonté loin) sont lues sur le disque en
+ * arrière-plan à la demande. La fenêtre ne dépasse jamais {@code maxPages} pages :
+ * charger d'un côté libère l'autre, la mémoire d'une conversation ouverte est donc
+ * bornée quelle que soit la longueur de l'historique.
+ *
+ * Les positions sont des rangs dans la conversation
+ * ({@link com.example.pelo_chat.storage.HistoryStore}) ; les messages de rang inférieur
+ * à {@link Source#first()} ont été supprimés par la rétention.
+ * Toutes les méthodes s'appellent sur le thread JavaFX ; les lectures passent par
+ * {@code io}, qui doit exécuter les tâches dans l'ordre (les ajouts demandés avant une
+ * lecture sont donc visibles par elle).
+ */
+public class PagedConversation {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 4;
+
+    /** Accès au journal d'un pair (appelé sur le thread {@code io}). */
+    public interface Source {
+        int count() throws IOException;
+
+        /** Rang du plus ancien message encore lisible. */
+        default int first() throws IOException {
+            return 0;
+        }
+
+        List<ChatMessage> read(int from, int to) throws IOException;
+    }
+
+    /** Prévenu après chaque changement de la fenêtre, pour garder le défilement en place. */
+    public interface Listener {
+        /** La dernière page vient d'être chargée (ouverture ou retour au plus récent). */
+        void latestLoaded(PagedConversation conversation);
+
+        /** {@code delta} messages ont été insérés (> 0) ou retirés (< 0) en tête de liste. */
+        void headShifted(PagedConversation conversation, int delta);
+    }
+
+    private final String peer;
+    private final Source source;
+    private final Executor io;
+    private final Executor ui;
+    private final int pageSize;
+    private final int maxItems;
+    private final ObservableList<ChatMessage> items = FXCollections.observableArrayList();
+    private Listener listener;
+
+    private int first;          // rang de items[0] dans le journal
+    private int head;           // rang du plus ancien message lisible
+    private int total;          // messages de la conversation (disque + session)
+    private int pendingLive;    // messages ajoutés avant la réception de la première page
+    private boolean opened;     // première page reçue
+    private boolean loading;    // une lecture de page est en cours
+    private int generation;     // invalide les lectures lancées avant un jumpToLatest
+
+    public PagedConversation(String peer, Source source, Executor io, Executor ui, int pageSize, int maxPages) {
+        this.peer = peer;
+        this.source = source;
+        this.io = io;
+        this.ui = ui;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxItems = this.pageSize * Math.max(2, maxPages);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public String peer() {
+        return peer;
+    }
+
+    /** Messages de la fenêtre, du plus ancien au plus récent (observés par la ListView). */
+    public ObservableList<ChatMessage> items() {
+        return items;
+    }
+
+    /** true une fois la première page reçue. */
+    public boolean loaded() {
+        return opened;
+    }
+
+    /** true si la fenêtre contient le message le plus récent. */
+    public boolean atTail() {
+        return !opened || first + items.size() == total;
+    }
+
+    /** true si la fenêtre contient le premier message de la conversation. */
+    public boolean atHead() {
+        return opened && first <= head;
+    }
+
+    // ═══════════════════════════════════════════════════════
+    // CHARGEMENT DES PAGES
+    // ═══════════════════════════════════════════════════════
+
+    /** Charge la dernière page (à l'ouverture de la conversation). */
+    public void openLatest() {
+        int gen = ++generation;
+        loading = true;
+        CompletableFuture.supplyAsync(() -> {
+            int count = count();
+            int head = head();
+            List<ChatMessage> latest = read(Math.max(head, count - pageSize), count);
+            return new Page(head, count - latest.size(), count, latest);
+        }, io).thenAcceptAsync(page -> {
+            if (gen != generation)
+                return;
+            loading = false;
+            opened = true;
+            items.addAll(0, page.messages);
+            head = page.head;
+            first = page.from;
+            total = page.to + pendingLive;
+            pendingLive = 0;
+            if (listener != null)
+                listener.latestLoaded(this);
+        }, ui);
+    }
+
+    /**
+     * Revient aux messages les plus récents : simple défilement si la fenêtre y est
+     * déjà, rechargement de la dernière page sinon.
+     */
+    public void jumpToLatest() {
+        if (atTail()) {
+            if (opened && listener != null)
+                listener.latestLoaded(this);
+            return;
+        }
+        items.clear();
+        opened = false;
+        first = 0;
+        head = 0;
+        total = 0;
+        pendingLive = 0;
+        openLatest();
+    }
+
+    /**
+     * Lit la page qui précède la fenêtre ; les messages les plus récents sont libérés si
+     * la fenêtre dépasse sa taille max.
+     *
+     * @return false si rien à charger (début atteint ou lecture déjà en cours)
+     */
+    public boolean loadOlder() {
+        if (!opened || loading || first <= head)
+            return false;
+        int gen = generation;
+        int to = first;
+        loading = true;
+        CompletableFuture.supplyAsync(() -> {
+            // La rétention a pu supprimer des messages depuis l'ouverture
+            int head = Math.min(head(), to);
+            int from = Math.max(head, to - pageSize);
+            return new Page(head, from, to, read(from, to));
+        }, io).thenAcceptAsync(page -> {
+            if (gen != generation)
+                return;
+            loading = false;
+            head = page.head;
+            if (page.messages.isEmpty())
+                return;
+            items.addAll(0, page.messages);
+            first = page.from;
+            if (items.size() > maxItems)
+                items.remove(maxItems, items.size());
+            if (listener != null)
+                listener.headShifted(this, page.messages.size());
+        }, ui);
+        return true;
+    }
+
+    /**
+     * Lit la page qui suit la fenêtre (après être remonté loin) ; les messages les plus
+     * anciens sont libérés si la fenêtre dépasse sa taille max.
+     *
+     * @return false si rien à charger (fin atteinte ou lecture déjà en cours)
+     */
+    public boolean loadNewer() {
+        if (!opened || loading || atTail())
+            return false;
+        int gen = generation;
+        int from = first + items.size();
+        int to = Math.min(total, from + pageSize);
+        loading = true;
+        CompletableFuture.supplyAsync(() -> read(from, to), io).thenAcceptAsync(page -> {
+            if (gen != generation)
+                return;
+            loading = false;
+            items.addAll(page);
+            trimHead();
+        }, ui);
+        return true;
+    }
+
+    /** Message de la session (envoyé ou reçu) : affiché seulement si la fenêtre est en bas. */
+    public void append(ChatMessage msg) {
+        if (!opened) {
+            // Rangé après la page en cours de lecture, qui ne le contient pas
+            items.add(msg);
+            pendingLive++;
+            return;
+        }
+        boolean tail = atTail();
+        total++;
+        if (tail) {
+            items.add(msg);
+            if (!loading)
+                trimHead();
+        }
+    }
+
+    private void trimHead() {
+        int excess = items.size() - maxItems;
+        if (excess <= 0)
+            return;
+        items.remove(0, excess);
+        first += excess;
+        if (listener != null)
+            listener.headShifted(this, -excess);
+    }
+
+    // ── Lectures (thread io) ─────────────────────────────
+
+    private record Page(int head, int from, int to, List<ChatMessage> messages) {
+    }
+
+    private int head() {
+        try {
+            return source.first();
+        } catch (IOException e) {
+            System.err.println("Lecture historique échouée pour " + peer + " : " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private int count() {
+        try {
+            return source.count();
+        } catch (IOException e) {
+            System.err.println("Lecture historique échouée pour " + peer + " : " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private List<ChatMessage> read(int from, int to) {
+        try {
+            return source.read(from, to);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Lecture historique échouée pour " + peer + " : " + e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -5,11 +5,10 @@ module com.example.pelo_chat {
     requires static lombok;
     requires com.google.gson;
     requires java.desktop;
+    requires java.management;
 
     opens com.example.pelo_chat to javafx.fxml;
-    opens com.example.pelo_chat.controller to javafx.fxml, com.google.gson;
-    opens com.example.pelo_chat.utils to com.google.gson;
-    opens com.example.pelo_chat.model to com.google.gson;
+    opens com.example.pelo_chat.controller to javafx.fxml;
     opens com.example.pelo_chat.service to javafx.fxml;
     opens com.example.pelo_chat.assets to javafx.graphics, javafx.fxml;
 
@@ -18,4 +17,7 @@ module com.example.pelo_chat {
     exports com.example.pelo_chat.service;
     exports com.example.pelo_chat.utils;
     exports com.example.pelo_chat.model;
+    exports com.example.pelo_chat.storage;
+    exports com.example.pelo_chat.view;
+    exports com.example.pelo_chat.metrics;
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.example.pelo_chat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.StatusEvent;
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.Packet;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PacketDispatcherTest {
+
+    private static long count(String name) {
+        return Metrics.CLIENT.counter(name).sum();
+    }
+
+    private static long timed(Action action) {
+        return Metrics.CLIENT.histogram("dispatch." + action.name()).count();
+    }
+
+    private static Packet status(Object payload) {
+        Packet p = new Packet("STATUS_UPDATE", "server", null, "{}");
+        p.setPayload(payload);
+        return p;
+    }
+
+    @Test
+    void routesByActionAndTimesHandlers() {
+        List<String> seen = new ArrayList<>();
+        PacketDispatcher dispatcher = new PacketDispatcher()
+                .on(Action.ACK, p -> seen.add("ack"))
+                .on(Action.ERROR, p -> seen.add("error:" + p.getContent()))
+                .on(Action.ERROR, p -> seen.add("remplacé:" + p.getContent()));
+        long acks = timed(Action.ACK);
+
+        dispatcher.dispatch(new Packet("ACK", "server", null, null));
+        dispatcher.dispatch(new Packet("ERROR", "server", null, "refusé"));
+        dispatcher.dispatch(null);
+
+        assertEquals(List.of("ack", "remplacé:refusé"), seen);
+        assertEquals(1, timed(Action.ACK) - acks);
+    }
+
+    @Test
+    void typedHandlerRejectsMissingOrWrongPayload() {
+        List<StatusEvent> events = new ArrayList<>();
+        PacketDispatcher dispatcher = new PacketDispatcher()
+                .on(Action.STATUS_UPDATE, StatusEvent.class, events::add);
+        long rejected = count("dispatch.rejected.STATUS_UPDATE");
+
+        StatusEvent online = new StatusEvent("alice", "ONLINE");
+        dispatcher.dispatch(status(online));
+        dispatcher.dispatch(status(null));                  // JSON illisible : pas de payload
+        dispatcher.dispatch(status("pas un StatusEvent"));
+
+        assertEquals(List.of(online), events);
+        assertEquals(2, count("dispatch.rejected.STATUS_UPDATE") - rejected);
+    }
+
+    @Test
+    void unhandledPacketsAreCountedAndPassedToFallback() {
+        List<Packet> others = new ArrayList<>();
+        PacketDispatcher dispatcher = new PacketDispatcher().on(Action.ACK, p -> { });
+        long unknown = count("dispatch.unhandled.UNKNOWN");
+        long users = count("dispatch.unhandled.USERS_LIST");
+
+        // Sans gestionnaire par défaut : compté, puis ignoré
+        dispatcher.dispatch(new Packet("PING_V2", "server", null, null));
+        assertEquals(1, count("dispatch.unhandled.UNKNOWN") - unknown);
+
+        dispatcher.otherwise(others::add);
+        Packet list = new Packet("USERS_LIST", "server", null, "[]");
+        Packet mystery = new Packet(null, null, null, null);
+        dispatcher.dispatch(list);
+        dispatcher.dispatch(mystery);
+
+        assertEquals(List.of(list, mystery), others);
+        assertEquals(1, count("dispatch.unhandled.USERS_LIST") - users);
+        assertEquals(2, count("dispatch.unhandled.UNKNOWN") - unknown);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.pelo_chat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.StatusEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PresenceAggregatorTest {
+
+    private final List<StatusEvent> applied = new ArrayList<>();
+
+    /** Fenêtre longue : le lot ne part que sur appel explicite de flush(). */
+    private PresenceAggregator manual() {
+        return new PresenceAggregator(e -> applied.add(e) && !"carol".equals(e.username()), 60_000, Runnable::run);
+    }
+
+    @Test
+    void lastStatusWinsPerUser() {
+        PresenceAggregator presence = manual();
+        presence.offer(new StatusEvent("alice", "ONLINE"));
+        presence.offer(new StatusEvent("bob", "ONLINE"));
+        presence.offer(new StatusEvent("Alice", "OFFLINE"));
+        presence.offer(new StatusEvent("alice", "ONLINE"));
+        presence.offer(new StatusEvent("bob", "OFFLINE"));
+        presence.flush();
+
+        // Un seul statut par utilisateur (casse ignorée), dans l'ordre du premier changement
+        assertEquals(List.of(new StatusEvent("alice", "ONLINE"), new StatusEvent("bob", "OFFLINE")), applied);
+
+        presence.flush();
+        assertEquals(2, applied.size(), "lot déjà appliqué");
+    }
+
+    @Test
+    void discardPendingDropsTheBatch() {
+        PresenceAggregator presence = manual();
+        presence.offer(new StatusEvent("alice", "OFFLINE"));
+        presence.discardPending();
+        presence.flush();
+        assertTrue(applied.isEmpty());
+
+        // La fenêtre suivante repart normalement
+        presence.offer(new StatusEvent("bob", "ONLINE"));
+        presence.flush();
+        assertEquals(List.of(new StatusEvent("bob", "ONLINE")), applied);
+    }
+
+    @Test
+    void invalidEventsAreIgnored() {
+        PresenceAggregator presence = manual();
+        presence.offer(null);
+        presence.offer(new StatusEvent(null, "ONLINE"));
+        presence.flush();
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    void countsReceivedCoalescedAndApplied() {
+        long received = Metrics.CLIENT.counter("presence.received").sum();
+        long coalesced = Metrics.CLIENT.counter("presence.coalesced").sum();
+        long changed = Metrics.CLIENT.counter("presence.applied").sum();
+        long batches = Metrics.CLIENT.counter("presence.batches").sum();
+
+        PresenceAggregator presence = manual();
+        presence.offer(new StatusEvent("alice", "ONLINE"));
+        presence.offer(new StatusEvent("alice", "OFFLINE"));
+        presence.offer(new StatusEvent("carol", "ONLINE")); // sans effet (applier : false)
+        presence.flush();
+
+        assertEquals(3, Metrics.CLIENT.counter("presence.received").sum() - received);
+        assertEquals(2, Metrics.CLIENT.counter("presence.coalesced").sum() - coalesced);
+        assertEquals(1, Metrics.CLIENT.counter("presence.applied").sum() - changed);
+        assertEquals(1, Metrics.CLIENT.counter("presence.batches").sum() - batches);
+    }
+
+    @Test
+    void oneFlushPerWindow() throws InterruptedException {
+        // Fenêtre de 1 ms ; les lots arrivent dans une file au lieu d'être appliqués
+        BlockingQueue<Runnable> scheduled = new LinkedBlockingQueue<>();
+        PresenceAggregator presence = new PresenceAggregator(applied::add, 1, scheduled::add);
+        presence.offer(new StatusEvent("alice", "ONLINE"));
+        Runnable flush = scheduled.poll(5, TimeUnit.SECONDS);
+        assertNotNull(flush);
+
+        // Lot pas encore appliqué : les changements suivants le rejoignent
+        presence.offer(new StatusEvent("bob", "ONLINE"));
+        presence.offer(new StatusEvent("alice", "OFFLINE"));
+        assertNull(scheduled.poll(50, TimeUnit.MILLISECONDS));
+
+        flush.run();
+        assertEquals(List.of(new StatusEvent("alice", "OFFLINE"), new StatusEvent("bob", "ONLINE")), applied);
+
+        // Fenêtre suivante : nouveau lot
+        presence.offer(new StatusEvent("bob", "OFFLINE"));
+        assertNotNull(scheduled.poll(5, TimeUnit.SECONDS));
+    }
+}
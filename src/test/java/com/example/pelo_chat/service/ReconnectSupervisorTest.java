@@ -0,0 +1,68 @@
+package com.example.pelo_chat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ReconnectSupervisorTest {
+
+    // Délais longs : aucune tentative ne part pendant le test
+    private static final long BASE_MS = 60_000;
+    private static final long MAX_MS = 600_000;
+
+    private static final Runnable NOTHING = () -> { };
+
+    @Test
+    void delaysStayUnderTheDoublingCeiling() {
+        ReconnectSupervisor supervisor = new ReconnectSupervisor(BASE_MS, MAX_MS);
+        try {
+            for (int n = 0; n < 8; n++) {
+                long ceiling = Math.min(MAX_MS, BASE_MS << n);
+                long longest = 0;
+                for (int sample = 0; sample < 100; sample++) {
+                    // n échecs déjà comptés, puis la tentative mesurée
+                    supervisor.cancel();
+                    for (int i = 0; i < n; i++)
+                        supervisor.schedule(NOTHING);
+                    long delay = supervisor.schedule(NOTHING);
+                    assertTrue(delay >= 0 && delay <= ceiling, "tentative " + n + " : " + delay + " ms");
+                    longest = Math.max(longest, delay);
+                    assertEquals(n + 1, supervisor.attempts());
+                }
+                // Gigue complète : les délais couvrent tout l'intervalle, pas seulement le bas
+                assertTrue(longest > ceiling / 2, "tentative " + n + " : max " + longest + " ms");
+            }
+        } finally {
+            supervisor.cancel();
+        }
+    }
+
+    @Test
+    void resetAndCancelRestartFromTheBaseDelay() {
+        ReconnectSupervisor supervisor = new ReconnectSupervisor(BASE_MS, MAX_MS);
+        try {
+            for (int i = 0; i < 5; i++)
+                supervisor.schedule(NOTHING);
+            supervisor.reset();
+            assertEquals(0, supervisor.attempts());
+            assertTrue(supervisor.schedule(NOTHING) <= BASE_MS);
+
+            supervisor.schedule(NOTHING);
+            supervisor.cancel();
+            assertEquals(0, supervisor.attempts());
+        } finally {
+            supervisor.cancel();
+        }
+    }
+
+    @Test
+    void attemptRunsOnTheScheduler() throws InterruptedException {
+        ReconnectSupervisor supervisor = new ReconnectSupervisor(1, 1);
+        CountDownLatch ran = new CountDownLatch(1);
+        supervisor.schedule(ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.pelo_chat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pelo_chat.utils.Action;
+import com.example.pelo_chat.utils.Packet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SocketServiceTest {
+
+    /** Transport en mémoire : garde les paquets envoyés et laisse le test jouer le serveur. */
+    private static final class FakeTransport implements Transport {
+        final List<Packet> sent = new CopyOnWriteArrayList<>();
+        volatile Listener listener;
+        volatile boolean closed;
+
+        @Override
+        public void open(String host, int port, Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public CompletableFuture<Void> send(Packet packet) {
+            sent.add(packet);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void shutdown(Runnable afterClose) {
+            close();
+            if (afterClose != null)
+                afterClose.run();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public int queueDepth() {
+            return 0;
+        }
+
+        @Override
+        public int maxQueueDepth() {
+            return 0;
+        }
+
+        @Override
+        public long packetsWritten() {
+            return sent.size();
+        }
+
+        @Override
+        public long flushes() {
+            return sent.size();
+        }
+
+        void receive(String action) {
+            listener.onPacket(new Packet(action, "server", null, null));
+        }
+
+        List<String> sentActions() {
+            return sent.stream().map(Packet::getAction).toList();
+        }
+    }
+
+    private final BlockingQueue<FakeTransport> opened = new LinkedBlockingQueue<>();
+    private final List<Packet> delivered = new CopyOnWriteArrayList<>();
+    private SocketService service;
+
+    @BeforeEach
+    void connect() throws IOException {
+        service = new SocketService(() -> {
+            FakeTransport t = new FakeTransport();
+            opened.add(t);
+            return t;
+        }, Runnable::run);
+        service.connect(delivered::add);
+    }
+
+    private FakeTransport next() throws InterruptedException {
+        // Première tentative de reconnexion : au plus le délai de base du backoff
+        FakeTransport t = opened.poll(5, TimeUnit.SECONDS);
+        assertNotNull(t, "aucune reconnexion");
+        return t;
+    }
+
+    private List<String> deliveredActions() {
+        return delivered.stream().map(Packet::getAction).toList();
+    }
+
+    /** Session ouverte (LOGIN accepté) puis connexion perdue : retourne le transport de reprise. */
+    private FakeTransport loseEstablishedSession() throws InterruptedException {
+        FakeTransport first = next();
+        service.login("alice", "secret");
+        first.receive("ACK");
+        first.listener.onClosed(new IOException("Connexion réinitialisée"), true);
+        assertTrue(first.closed, "transport perdu libéré");
+
+        FakeTransport resumed = next();
+        // Le LOGIN de reprise suit l'ouverture, sur le thread du superviseur
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (resumed.sent.isEmpty() && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+        Packet login = resumed.sent.get(0);
+        assertEquals("LOGIN", login.getAction());
+        assertEquals("alice", login.getFrom());
+        assertEquals("secret", login.getContent());
+        return resumed;
+    }
+
+    @Test
+    void ackResumesTheSession() throws InterruptedException {
+        FakeTransport resumed = loseEstablishedSession();
+
+        // Paquets poussés par le serveur avant sa réponse : livrés, la reprise reste en attente
+        resumed.receive("STATUS_UPDATE");
+        resumed.receive("MESSAGE_RECEIVED");
+        assertEquals(List.of("LOGIN"), resumed.sentActions());
+
+        resumed.receive("ACK");
+        assertEquals(List.of("ACK", "RECONNECTING", "STATUS_UPDATE", "MESSAGE_RECEIVED", "RECONNECTED"),
+                deliveredActions());
+        assertEquals(List.of("LOGIN", "GET_USERS"), resumed.sentActions());
+        assertTrue(resumed.sent.get(1).getContent().startsWith("since="));
+
+        // Session reprise : le ACK suivant est un paquet ordinaire
+        resumed.receive("ACK");
+        assertEquals(Action.ACK, delivered.get(delivered.size() - 1).actionType());
+    }
+
+    @Test
+    void errorEndsTheSession() throws InterruptedException {
+        FakeTransport resumed = loseEstablishedSession();
+
+        resumed.receive("ERROR");
+        assertEquals(List.of("ACK", "RECONNECTING", "ERROR"), deliveredActions());
+
+        // Identifiants refusés : une nouvelle coupure n'est plus reprise
+        resumed.listener.onClosed(new IOException("Fermée par le serveur"), true);
+        assertEquals(List.of("ACK", "RECONNECTING", "ERROR", "ERROR"), deliveredActions());
+        assertEquals("Connexion perdue", delivered.get(3).getContent());
+        assertTrue(opened.isEmpty());
+    }
+
+    @Test
+    void lossBeforeLoginIsReportedOnce() throws InterruptedException {
+        FakeTransport first = next();
+        first.listener.onClosed(new IOException("Connexion refusée"), false);
+        assertEquals(List.of("ERROR"), deliveredActions());
+        assertEquals("Impossible de joindre le serveur", delivered.get(0).getContent());
+        assertNull(opened.poll(200, TimeUnit.MILLISECONDS), "pas de reconnexion sans session");
+    }
+
+    @Test
+    void disconnectDropsQueuedDelivery() throws IOException {
+        List<Runnable> drains = new ArrayList<>();
+        SocketService deferred = new SocketService(FakeTransport::new, drains::add);
+        List<Packet> received = new ArrayList<>();
+        deferred.connect(received::add);
+        FakeTransport t = (FakeTransport) deferred.getTransport();
+        t.receive("MESSAGE_RECEIVED");
+        deferred.disconnect();
+        drains.forEach(Runnable::run);
+        assertTrue(received.isEmpty());
+        assertEquals("LOGOUT", t.sent.get(t.sent.size() - 1).getAction());
+    }
+}
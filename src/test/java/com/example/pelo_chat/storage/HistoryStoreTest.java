@@ -0,0 +1,92 @@
+package com.example.pelo_chat.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.pelo_chat.model.ChatMessage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HistoryStoreTest {
+
+    private static final String PEER = "bob";
+
+    @TempDir
+    Path root;
+
+    private static ChatMessage message(int rank) {
+        return new ChatMessage(PEER, "message " + rank + " — été", rank % 3 == 0, "08:15");
+    }
+
+    private static List<ChatMessage> messages(int from, int to) {
+        List<ChatMessage> out = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            out.add(message(i));
+        return out;
+    }
+
+    private static void append(HistoryStore store, int from, int to) throws IOException {
+        for (int i = from; i < to; i++)
+            assertEquals(i, store.append(PEER, message(i)));
+    }
+
+    @Test
+    void compactionKeepsRanks() throws IOException {
+        try (HistoryStore store = new HistoryStore(root)) {
+            append(store, 0, 100);
+            store.compact(PEER, 30);
+            assertEquals(30, store.first(PEER));
+            assertEquals(100, store.count(PEER));
+
+            append(store, 100, 120);
+            assertEquals(messages(30, 120), store.read(PEER, 30, 120));
+            // Accès direct dans l'archive, dans le journal, et à cheval sur les deux
+            assertEquals(messages(57, 58), store.read(PEER, 57, 58));
+            assertEquals(messages(110, 115), store.read(PEER, 110, 115));
+            assertEquals(messages(95, 105), store.read(PEER, 95, 105));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.read(PEER, 29, 40));
+        }
+    }
+
+    @Test
+    void successiveCompactionsSurviveReopen() throws IOException {
+        try (HistoryStore store = new HistoryStore(root)) {
+            append(store, 0, 50);
+            store.compact(PEER, 10);
+            append(store, 50, 80);
+            store.compact(PEER, 25);   // 10 + 25 : l'ancienne archive et le journal
+            append(store, 80, 90);
+        }
+        try (HistoryStore store = new HistoryStore(root)) {
+            assertEquals(35, store.first(PEER));
+            assertEquals(90, store.count(PEER));
+            assertEquals(messages(35, 90), store.read(PEER, 35, 90));
+            assertEquals(messages(79, 81), store.read(PEER, 79, 81));
+            assertEquals(90, store.append(PEER, message(90)));
+        }
+    }
+
+    @Test
+    void archiveRandomAccess() throws IOException {
+        try (MessageLog log = MessageLog.open(root.resolve("log"))) {
+            for (int i = 0; i < 40; i++)
+                log.append(message(i), 1_000L + i);
+            Path file = root.resolve("archive.pma");
+            MessageArchive.write(file, null, log, 15);
+            try (MessageArchive archive = MessageArchive.open(file)) {
+                assertEquals(25, archive.size());
+                assertEquals(15, archive.base());
+                for (int i = archive.size() - 1; i >= 0; i -= 7) {
+                    assertEquals(message(15 + i), archive.get(i));
+                    assertEquals(1_015L + i, archive.timestamp(i));
+                }
+                assertEquals(messages(20, 30), archive.read(5, 15));
+                assertThrows(IndexOutOfBoundsException.class, () -> archive.read(20, 26));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pelo_chat.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.pelo_chat.model.ChatMessage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MessageLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static ChatMessage message(int i) {
+        return new ChatMessage(i % 2 == 0 ? "alice" : "bob", "message n°" + i + " — déjà lu ?", i % 2 == 0, "12:00");
+    }
+
+    private List<ChatMessage> fill(int n) throws IOException {
+        List<ChatMessage> written = new ArrayList<>();
+        try (MessageLog log = MessageLog.open(dir)) {
+            for (int i = 0; i < n; i++) {
+                written.add(message(i));
+                assertEquals(i, log.append(written.get(i)));
+            }
+        }
+        return written;
+    }
+
+    private Path segment() {
+        return dir.resolve("00000000.seg");
+    }
+
+    private Path index() {
+        return dir.resolve("offsets.idx");
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(size);
+        }
+    }
+
+    @Test
+    void reopenKeepsEveryMessage() throws IOException {
+        List<ChatMessage> written = fill(20);
+        try (MessageLog log = MessageLog.open(dir)) {
+            assertEquals(20, log.size());
+            assertEquals(written, log.readAll());
+            assertEquals(written.subList(5, 9), log.read(5, 9));
+        }
+    }
+
+    @Test
+    void tornRecordIsDropped() throws IOException {
+        List<ChatMessage> written = fill(5);
+        long full = Files.size(segment());
+        truncate(segment(), full - 3);
+
+        try (MessageLog log = MessageLog.open(dir)) {
+            assertEquals(4, log.size());
+            assertEquals(written.subList(0, 4), log.readAll());
+            assertEquals(4, log.append(message(4)));
+        }
+        assertEquals(full, Files.size(segment()));
+        try (MessageLog log = MessageLog.open(dir)) {
+            assertEquals(written, log.readAll());
+        }
+    }
+
+    @Test
+    void garbageTailIsTruncated() throws IOException {
+        List<ChatMessage> written = fill(3);
+        long full = Files.size(segment());
+        try (FileChannel ch = FileChannel.open(segment(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17}));
+        }
+
+        try (MessageLog log = MessageLog.open(dir)) {
+            assertEquals(3, log.size());
+            assertEquals(written, log.readAll());
+        }
+        assertEquals(full, Files.size(segment()));
+    }
+
+    @Test
+    void unindexedRecordsAreReindexed() throws IOException {
+        List<ChatMessage> written = fill(6);
+        // Crash entre l'écriture des enregistrements et celle de leurs entrées d'index,
+        // la dernière entrée à moitié écrite
+        truncate(index(), 3L * MessageLog.ENTRY_BYTES + 5);
+
+        try (MessageLog log = MessageLog.open(dir)) {
+            assertEquals(6, log.size());
+            assertEquals(written, log.readAll());
+            assertEquals(written.get(5), log.last());
+        }
+        assertEquals(6L * MessageLog.ENTRY_BYTES, Files.size(index()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.pelo_chat.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexTest {
+
+    private static final List<String> MESSAGES = List.of(
+            "Réunion de l'équipe demain à 9h",
+            "Les bureaux ferment à 18h",
+            "J’ai le cœur léger après la réunion",
+            "Rien à signaler");
+
+    @TempDir
+    Path dir;
+
+    private Path file() {
+        return dir.resolve(SearchIndex.FILE_NAME);
+    }
+
+    private SearchIndex filled() throws IOException {
+        SearchIndex index = SearchIndex.open(file());
+        for (int i = 0; i < MESSAGES.size(); i++)
+            assertTrue(index.add("alice", i, MESSAGES.get(i)));
+        return index;
+    }
+
+    private static List<Integer> ranks(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(SearchIndex.Hit::rank).sorted().toList();
+    }
+
+    @Test
+    void accentsCaseAndPluralsMatch() throws IOException {
+        try (SearchIndex index = filled()) {
+            assertEquals(List.of(0, 2), ranks(index.search("REUNION", 10)));
+            assertEquals(List.of(0), ranks(index.search("equipes", 10)));
+            assertEquals(List.of(2), ranks(index.search("coeur", 10)));
+            assertEquals(List.of(1), ranks(index.search("bureau", 10)));
+            assertEquals(List.of(0), ranks(index.search("réunion équipe", 10)));
+            assertTrue(index.search("absent", 10).isEmpty());
+            assertFalse(index.add("alice", 0, "déjà indexé"));
+            assertFalse(index.add("alice", 7, "rang inattendu"));
+        }
+    }
+
+    @Test
+    void highlightsPointIntoOriginalText() {
+        String text = MESSAGES.get(0);
+        List<int[]> spans = SearchIndex.highlights(text, "reunion EQUIPE");
+        assertEquals(2, spans.size());
+        assertArrayEquals(new int[] {0, 7}, spans.get(0));
+        assertEquals("Réunion", text.substring(spans.get(0)[0], spans.get(0)[1]));
+        assertEquals("équipe", text.substring(spans.get(1)[0], spans.get(1)[1]));
+
+        String heart = MESSAGES.get(2);
+        List<int[]> hearts = SearchIndex.highlights(heart, "coeur");
+        assertEquals(1, hearts.size());
+        assertEquals("cœur", heart.substring(hearts.get(0)[0], hearts.get(0)[1]));
+
+        List<int[]> offices = SearchIndex.highlights(MESSAGES.get(1), "bureau");
+        assertEquals("bureaux", MESSAGES.get(1).substring(offices.get(0)[0], offices.get(0)[1]));
+    }
+
+    @Test
+    void tornTailIsTruncatedOnReplay() throws IOException {
+        filled().close();
+        long full = Files.size(file());
+        try (FileChannel ch = FileChannel.open(file(), StandardOpenOption.WRITE)) {
+            ch.truncate(full - 2);
+        }
+
+        try (SearchIndex index = SearchIndex.open(file())) {
+            assertEquals(3, index.documentCount());
+            assertEquals(3, index.indexedCount("alice"));
+            assertTrue(index.search("signaler", 10).isEmpty());
+            assertEquals(List.of(0, 2), ranks(index.search("réunion", 10)));
+            assertTrue(index.add("alice", 3, MESSAGES.get(3)));
+        }
+        try (SearchIndex index = SearchIndex.open(file())) {
+            assertEquals(4, index.documentCount());
+            assertEquals(List.of(3), ranks(index.search("signaler", 10)));
+        }
+    }
+}
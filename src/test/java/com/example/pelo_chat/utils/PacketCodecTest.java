@@ -0,0 +1,104 @@
+package com.example.pelo_chat.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PacketCodecTest {
+
+    private static final List<Packet> PACKETS = List.of(
+            new Packet("LOGIN", "alice", null, "secret"),
+            new Packet("SEND_MESSAGE", "alice", "bob", "Réunion demain à 9h, l’équipe au complet ? Cœur ♥"),
+            new Packet("SEND_MESSAGE", "bob", "alice", "ligne 1\nligne 2\r\n\"guillemets\" \\ fin"),
+            new Packet("STATUS_UPDATE", "bob", null, null),
+            new Packet("ERROR", null, null, ""),
+            new Packet("PING_V2", "server", "alice", "action inconnue du client"),
+            new Packet(null, null, null, null));
+
+    private static final List<PacketCodec> CODECS = List.of(
+            new JsonLineCodec(JsonAdapters.GSON),
+            new BinaryPacketCodec());
+
+    @Test
+    void roundTripThroughStream() throws IOException {
+        for (PacketCodec codec : CODECS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (Packet p : PACKETS)
+                out.write(codec.encode(p));
+
+            InputStream in = new ByteArrayInputStream(out.toByteArray());
+            for (Packet p : PACKETS)
+                assertEquals(p, codec.read(in), codec.name());
+            assertNull(codec.read(in), codec.name() + " : fin de flux");
+        }
+    }
+
+    @Test
+    void roundTripThroughFrames() throws IOException {
+        for (PacketCodec codec : CODECS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (Packet p : PACKETS)
+                out.write(codec.encode(p));
+            byte[] bytes = out.toByteArray();
+
+            // Les trames arrivent octet par octet : aucune ne doit être vue complète trop tôt
+            ByteBuffer buf = ByteBuffer.allocate(bytes.length);
+            List<Packet> decoded = new ArrayList<>();
+            int start = 0;
+            for (byte b : bytes) {
+                buf.put(b);
+                int end = codec.frameEnd(buf, start, start, buf.position());
+                if (end < 0)
+                    continue;
+                decoded.add(codec.decode(buf.duplicate().position(start).limit(end)));
+                start = end;
+            }
+            assertEquals(PACKETS, decoded, codec.name());
+            assertEquals(bytes.length, start, codec.name());
+        }
+    }
+
+    @Test
+    void binaryCodesAreStableAndDistinct() throws IOException {
+        BinaryPacketCodec codec = new BinaryPacketCodec();
+        for (Action a : Action.values()) {
+            if (a.code() != 0)
+                assertEquals(a, Action.ofCode(a.code()));
+            Packet p = new Packet(a.name(), "a", "b", "c");
+            assertEquals(p, codec.read(new ByteArrayInputStream(codec.encode(p))), a.name());
+        }
+        assertEquals(1, Action.LOGIN.code());
+        assertEquals(12, Action.HELLO.code());
+        assertNull(Action.ofCode(200));
+    }
+
+    @Test
+    void binaryRejectsUnknownCodeAndTruncatedFrame() {
+        BinaryPacketCodec codec = new BinaryPacketCodec();
+        byte[] unknown = {4, (byte) 200, 0, 0, 0};
+        assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(unknown)));
+
+        byte[] frame = codec.encode(new Packet("SEND_MESSAGE", "alice", "bob", "bonjour"));
+        byte[] torn = Arrays.copyOf(frame, frame.length - 2);
+        assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(torn)));
+    }
+
+    @Test
+    void frameLargerThanLimitIsRejected() {
+        Packet big = new Packet("SEND_MESSAGE", "alice", "bob", "x".repeat(2048));
+        for (PacketCodec codec : List.of(new JsonLineCodec(JsonAdapters.GSON, 1024), new BinaryPacketCodec(1024))) {
+            byte[] bytes = codec.encode(big);
+            assertThrows(IOException.class, () -> codec.read(new ByteArrayInputStream(bytes)), codec.name());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.pelo_chat.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.pelo_chat.metrics.Metrics;
+import com.example.pelo_chat.model.ChatMessage;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ConversationCacheTest {
+
+    private static final PagedConversation.Source EMPTY = new PagedConversation.Source() {
+        @Override
+        public int count() {
+            return 0;
+        }
+
+        @Override
+        public List<ChatMessage> read(int from, int to) {
+            return List.of();
+        }
+    };
+
+    private static PagedConversation conversation(String peer) {
+        return new PagedConversation(peer, EMPTY, Runnable::run, Runnable::run,
+                PagedConversation.DEFAULT_PAGE_SIZE, PagedConversation.DEFAULT_MAX_PAGES);
+    }
+
+    private static long count(String name) {
+        return Metrics.CLIENT.counter(name).sum();
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvicted() {
+        ConversationCache cache = new ConversationCache(2);
+        PagedConversation alice = conversation("alice");
+        PagedConversation bob = conversation("bob");
+        long evicted = count("conversations.cache.evicted");
+
+        cache.put(alice);
+        cache.put(bob);
+        assertSame(alice, cache.get("alice")); // bob devient le moins récent
+        cache.put(conversation("carol"));
+
+        assertNull(cache.peek("bob"));
+        assertSame(alice, cache.peek("alice"));
+        assertEquals(1, count("conversations.cache.evicted") - evicted);
+
+        // peek rafraîchit aussi l'entrée : carol part à la place d'alice
+        cache.peek("alice");
+        cache.put(conversation("dave"));
+        assertNull(cache.peek("carol"));
+        assertSame(alice, cache.peek("alice"));
+        assertEquals(2, count("conversations.cache.evicted") - evicted);
+    }
+
+    @Test
+    void hitsAndMissesAreCountedByGetOnly() {
+        ConversationCache cache = new ConversationCache(ConversationCache.DEFAULT_CAPACITY);
+        long hits = count("conversations.cache.hit");
+        long misses = count("conversations.cache.miss");
+
+        cache.put(conversation("alice"));
+        cache.get("alice");
+        cache.get("bob");
+        cache.peek("alice");
+        cache.peek("bob");
+
+        assertEquals(1, count("conversations.cache.hit") - hits);
+        assertEquals(1, count("conversations.cache.miss") - misses);
+    }
+
+    @Test
+    void scrollFollowsItsEntry() {
+        ConversationCache cache = new ConversationCache(1);
+        ConversationCache.Scroll scroll = new ConversationCache.Scroll(12, -4.5, false);
+
+        cache.saveScroll("alice", scroll); // pas encore en cache : ignoré
+        assertNull(cache.scroll("alice"));
+
+        cache.put(conversation("alice"));
+        cache.saveScroll("alice", scroll);
+        assertEquals(scroll, cache.scroll("alice"));
+
+        // Conversation rouverte : nouvelle entrée, position oubliée
+        cache.put(conversation("alice"));
+        assertNull(cache.scroll("alice"));
+
+        cache.saveScroll("alice", scroll);
+        cache.put(conversation("bob"));
+        assertNull(cache.scroll("alice"));
+    }
+
+    @Test
+    void capacityIsAtLeastOne() {
+        ConversationCache cache = new ConversationCache(0);
+        PagedConversation alice = conversation("alice");
+        cache.put(alice);
+        assertSame(alice, cache.get("alice"));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.pelo_chat.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pelo_chat.model.ChatMessage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.junit.jupiter.api.Test;
+
+class PagedConversationTest {
+
+    private static final int PAGE = 10;
+    private static final int MAX_PAGES = 3;
+
+    /** Journal en mémoire ; les rangs sous {@code head} ont été supprimés par la rétention. */
+    private final List<ChatMessage> log = new ArrayList<>();
+    private int head;
+
+    // Lectures en attente : le test choisit quand le thread io les exécute
+    private final Queue<Runnable> io = new ArrayDeque<>();
+    private final List<Integer> shifts = new ArrayList<>();
+    private int latestLoaded;
+
+    private static ChatMessage message(int rank) {
+        return new ChatMessage("bob", "message " + rank, false, "09:00");
+    }
+
+    private PagedConversation open(int messages) {
+        for (int i = 0; i < messages; i++)
+            log.add(message(i));
+        PagedConversation.Source source = new PagedConversation.Source() {
+            @Override
+            public int count() {
+                return log.size();
+            }
+
+            @Override
+            public int first() {
+                return head;
+            }
+
+            @Override
+            public List<ChatMessage> read(int from, int to) {
+                if (from < head)
+                    throw new IndexOutOfBoundsException(from + " < " + head);
+                return new ArrayList<>(log.subList(from, to));
+            }
+        };
+        PagedConversation conv = new PagedConversation("bob", source, io::add, Runnable::run, PAGE, MAX_PAGES);
+        conv.setListener(new PagedConversation.Listener() {
+            @Override
+            public void latestLoaded(PagedConversation conversation) {
+                latestLoaded++;
+            }
+
+            @Override
+            public void headShifted(PagedConversation conversation, int delta) {
+                shifts.add(delta);
+            }
+        });
+        return conv;
+    }
+
+    private void runIo() {
+        Runnable task;
+        while ((task = io.poll()) != null)
+            task.run();
+    }
+
+    private static List<ChatMessage> range(int from, int to) {
+        List<ChatMessage> out = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            out.add(message(i));
+        return out;
+    }
+
+    @Test
+    void opensOnTheLatestPage() {
+        PagedConversation conv = open(95);
+        conv.openLatest();
+        assertFalse(conv.loaded());
+        runIo();
+
+        assertTrue(conv.loaded());
+        assertEquals(range(85, 95), conv.items());
+        assertTrue(conv.atTail());
+        assertFalse(conv.atHead());
+        assertEquals(1, latestLoaded);
+    }
+
+    @Test
+    void windowNeverExceedsMaxPages() {
+        PagedConversation conv = open(95);
+        conv.openLatest();
+        runIo();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(conv.loadOlder());
+            assertFalse(conv.loadOlder(), "une seule lecture à la fois");
+            runIo();
+        }
+        // 4 pages plus anciennes lues, les plus récentes libérées au-delà de 3 pages
+        assertEquals(range(45, 75), conv.items());
+        assertFalse(conv.atTail());
+        assertEquals(List.of(PAGE, PAGE, PAGE, PAGE), shifts);
+
+        assertTrue(conv.loadNewer());
+        runIo();
+        assertEquals(range(55, 85), conv.items());
+        assertEquals(-PAGE, (int) shifts.get(shifts.size() - 1));
+
+        assertTrue(conv.loadNewer());
+        runIo();
+        assertEquals(range(65, 95), conv.items());
+        assertTrue(conv.atTail());
+        assertFalse(conv.loadNewer());
+    }
+
+    @Test
+    void stopsAtTheOldestKeptMessage() {
+        head = 12;
+        PagedConversation conv = open(30);
+        conv.openLatest();
+        runIo();
+        assertTrue(conv.loadOlder());
+        runIo();
+        assertEquals(range(12, 30), conv.items());
+        assertTrue(conv.atHead());
+        assertFalse(conv.loadOlder());
+    }
+
+    @Test
+    void retentionDuringScrollBackIsRespected() {
+        PagedConversation conv = open(40);
+        conv.openLatest();
+        runIo();
+        head = 25; // compactage pendant que la conversation est ouverte
+        assertTrue(conv.loadOlder());
+        runIo();
+        assertEquals(range(25, 40), conv.items());
+        assertTrue(conv.atHead());
+    }
+
+    @Test
+    void jumpToLatestDiscardsOlderReadsInFlight() {
+        PagedConversation conv = open(95);
+        conv.openLatest();
+        runIo();
+        for (int i = 0; i < 3; i++) {
+            conv.loadOlder();
+            runIo();
+        }
+        assertFalse(conv.atTail());
+
+        // Lecture plus ancienne en cours quand l'utilisateur revient en bas
+        assertTrue(conv.loadOlder());
+        conv.jumpToLatest();
+        assertTrue(conv.items().isEmpty());
+        runIo();
+
+        assertEquals(range(85, 95), conv.items());
+        assertTrue(conv.atTail());
+        assertEquals(2, latestLoaded);
+    }
+
+    @Test
+    void liveMessagesFollowTheWindow() {
+        PagedConversation conv = open(20);
+        conv.openLatest();
+        // Reçu avant la première page : écrit sur le thread io après la lecture en cours,
+        // affiché après elle
+        io.add(() -> log.add(message(20)));
+        conv.append(message(20));
+        runIo();
+        assertEquals(range(10, 21), conv.items());
+        assertTrue(conv.atTail());
+
+        // Fenêtre en bas : affiché, et la tête libérée au-delà de la taille max
+        for (int i = 21; i < 45; i++) {
+            log.add(message(i));
+            conv.append(message(i));
+        }
+        assertEquals(range(15, 45), conv.items());
+
+        // Fenêtre remontée : compté mais pas affiché, relu avec la page suivante
+        conv.loadOlder();
+        runIo();
+        assertEquals(range(5, 35), conv.items());
+        log.add(message(45));
+        conv.append(message(45));
+        assertEquals(range(5, 35), conv.items());
+        conv.jumpToLatest();
+        runIo();
+        assertEquals(range(36, 46), conv.items());
+    }
+}